@@ -0,0 +1,50 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh") version "0.7.3"
+}
+
+group = "org.maibot.benchmarks"
+description = "MaiBot Benchmarks"
+version = "0.1.0-Alpha"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    // Core under test
+    implementation(project(":"))
+    implementation(files("../sdk/build/libs/sdk-0.1.0-Alpha.jar"))
+
+    // Dependencies referenced directly by the harnesses
+    implementation("io.netty:netty-all:4.2.6.Final")
+    implementation("org.slf4j:slf4j-api:2.0.17")
+    implementation("ch.qos.logback:logback-classic:1.5.19")
+    implementation("com.google.code.gson:gson:2.13.2")
+    implementation("org.hdrhistogram:HdrHistogram:2.2.2")
+}
+
+tasks.named("compileJava") {
+    dependsOn(":sdk:jar")
+}
+
+// 负载生成器：./gradlew :benchmarks:loadTest -PloadArgs="adapters=8 rate=500 duration=60"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs InnerServer in-process against simulated adapters and reports end-to-end latency"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("org.maibot.benchmarks.load.LoadGenerator")
+    args = providers.gradleProperty("loadArgs").orNull?.split(" ")?.filter { it.isNotBlank() } ?: emptyList()
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // 分配速率（gc.alloc.rate.norm）
+    profilers.add("gc")
+    resultFormat.set("JSON")
+    // 通过 -Pjmh.includes=<regex> 只运行部分基准
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.add(it) }
+}
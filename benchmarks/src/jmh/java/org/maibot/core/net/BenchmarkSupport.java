@@ -0,0 +1,130 @@
+package org.maibot.core.net;
+
+import ch.qos.logback.classic.Level;
+import com.google.gson.Gson;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import io.netty.util.ReferenceCountUtil;
+import org.maibot.core.config.MainConfig;
+import org.maibot.core.util.MetricsRegistry;
+import org.maibot.core.util.TaskExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 基准测试的公共装配
+ * <p>
+ * 按 {@link InnerServer} 的方式手动装配网络层组件（不经过IoC容器），并提供请求与帧的预编码
+ */
+final class BenchmarkSupport {
+    static final String SMALL_JSON = "{\"platform\":\"qq\",\"group_id\":\"123456\",\"user_id\":\"654321\",\"message\":\"hello\"}";
+
+    final TaskExecutorService taskExecutorService;
+    final ActiveWsManager activeWsManager;
+    final NetworkMetrics networkMetrics;
+    final HttpDispatchHandler httpDispatchHandler;
+    final WsDispatchHandler wsDispatchHandler;
+    final DispatchHandler dispatchHandler;
+    final ExceptionHandler exceptionHandler = new ExceptionHandler();
+
+    BenchmarkSupport() {
+        // 避免调试日志影响测量结果
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        // 所有可选配置项缺省（不限流、不限连接数）
+        var conf = new Gson().fromJson("{\"host\":\"127.0.0.1\",\"port\":0}", MainConfig.Network.class);
+        var rateLimiter = new RateLimiter(conf);
+
+        this.taskExecutorService = new TaskExecutorService();
+        this.activeWsManager = new ActiveWsManager(conf);
+        this.networkMetrics = new NetworkMetrics(activeWsManager, new AdmissionHandler(conf, rateLimiter), new MetricsRegistry());
+        this.httpDispatchHandler = new HttpDispatchHandler(taskExecutorService, rateLimiter, networkMetrics);
+        this.wsDispatchHandler = new WsDispatchHandler(activeWsManager, rateLimiter);
+        this.dispatchHandler = new DispatchHandler(wsDispatchHandler);
+    }
+
+    /**
+     * 创建装配了完整HTTP处理链（与 {@link InnerServer} 识别为HTTP/1.1后的处理链相同）的连接
+     */
+    EmbeddedChannel newHttpChannel() {
+        var channel = new EmbeddedChannel();
+        channel.pipeline().addLast("exceptionHandler", exceptionHandler);
+        InnerServer.installHttpPipeline(channel.pipeline(), dispatchHandler, httpDispatchHandler, exceptionHandler);
+        return channel;
+    }
+
+    void shutdown() {
+        taskExecutorService.shutdown();
+    }
+
+    /**
+     * 将请求编码为客户端发送的字节
+     */
+    static ByteBuf encodeRequest(FullHttpRequest req) {
+        var client = new EmbeddedChannel(new HttpClientCodec());
+        client.writeOutbound(req);
+        return collectOutbound(client);
+    }
+
+    /**
+     * 将帧编码为客户端发送的（带掩码的）字节
+     */
+    static ByteBuf encodeClientFrame(WebSocketFrame frame) {
+        var client = new EmbeddedChannel(new WebSocket13FrameEncoder(true));
+        client.writeOutbound(frame);
+        return collectOutbound(client);
+    }
+
+    private static ByteBuf collectOutbound(EmbeddedChannel client) {
+        var out = Unpooled.buffer();
+        Object msg;
+        while ((msg = client.readOutbound()) != null) {
+            out.writeBytes((ByteBuf) msg);
+            ReferenceCountUtil.release(msg);
+        }
+        client.finishAndReleaseAll();
+        return Unpooled.unreleasableBuffer(out);
+    }
+
+    static FullHttpRequest jsonRequest(String uri) {
+        var body = Unpooled.copiedBuffer(SMALL_JSON, StandardCharsets.UTF_8);
+        var req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, uri, body);
+        req.headers()
+                .set(HttpHeaderNames.HOST, "localhost")
+                .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON)
+                .set(HttpHeaderNames.CONTENT_LENGTH, body.readableBytes());
+        return req;
+    }
+
+    static FullHttpRequest upgradeRequest(String uri) {
+        var req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, uri);
+        req.headers()
+                .set(HttpHeaderNames.HOST, "localhost")
+                .set(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET)
+                .set(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE)
+                .set(HttpHeaderNames.SEC_WEBSOCKET_KEY, "dGhlIHNhbXBsZSBub25jZQ==")
+                .set(HttpHeaderNames.SEC_WEBSOCKET_VERSION, "13");
+        return req;
+    }
+
+    /**
+     * 读出并释放连接上所有的出站消息
+     *
+     * @return 出站消息数
+     */
+    static int drainOutbound(EmbeddedChannel channel) {
+        int count = 0;
+        Object msg;
+        while ((msg = channel.readOutbound()) != null) {
+            ReferenceCountUtil.release(msg);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,162 @@
+package org.maibot.core.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.util.ReferenceCountUtil;
+import org.maibot.sdk.network.WsProcessors;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 连接建立开销基准：装配处理链、处理首个请求（或WebSocket握手）并关闭连接
+ * <p>
+ * 用于比较处理链装配方式的改动（如预计算的处理链模板）前后的开销：
+ * legacy 前缀的基准重放基线的处理链与分发器（无h2c升级处理器、路由聚合器与出站队列），其余基准使用当前的处理链
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConnectionSetupBenchmark {
+    private static final String PATH = "/bench/ws";
+    private static final int MAX_HTTP_CONTENT_LENGTH = 1024 * 1024 * 5;
+
+    @ChannelHandler.Sharable
+    private static final class NoopHandler extends ChannelInboundHandlerAdapter {
+    }
+
+    private BenchmarkSupport support;
+    private WsProcessors wsProcessors;
+    private LegacyDispatcher legacyDispatcher;
+    private ByteBuf pingBytes;
+    private ByteBuf upgradeBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        support = new BenchmarkSupport();
+        wsProcessors = new WsProcessors(PATH, List.of(new NoopHandler(), new NoopHandler()));
+        support.wsDispatchHandler.registerProcessor(wsProcessors);
+        legacyDispatcher = new LegacyDispatcher(support, new LegacyWsUpgrader(support.activeWsManager, wsProcessors));
+
+        var ping = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/ping");
+        ping.headers().set(HttpHeaderNames.HOST, "localhost");
+        pingBytes = BenchmarkSupport.encodeRequest(ping);
+        upgradeBytes = BenchmarkSupport.encodeRequest(BenchmarkSupport.upgradeRequest(PATH));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        support.shutdown();
+    }
+
+    @Benchmark
+    public int httpConnection() {
+        return run(support.newHttpChannel(), pingBytes);
+    }
+
+    @Benchmark
+    public int wsConnection() {
+        return run(support.newHttpChannel(), upgradeBytes);
+    }
+
+    @Benchmark
+    public int legacyHttpConnection() {
+        return run(newLegacyHttpChannel(), pingBytes);
+    }
+
+    @Benchmark
+    public int legacyWsConnection() {
+        return run(newLegacyHttpChannel(), upgradeBytes);
+    }
+
+    private static int run(EmbeddedChannel channel, ByteBuf request) {
+        channel.writeInbound(request.duplicate());
+        int count = BenchmarkSupport.drainOutbound(channel);
+        // 关闭后连接从 ActiveWsManager 中移除，下一次握手不会因连接数上限被拒绝
+        channel.finishAndReleaseAll();
+        return count;
+    }
+
+    /**
+     * 基线的处理链（与基线 InnerServer.initChannel 相同）：HTTP编解码器、聚合器、分发器与异常处理兜底
+     */
+    private EmbeddedChannel newLegacyHttpChannel() {
+        var channel = new EmbeddedChannel();
+        var pipeline = channel.pipeline();
+        pipeline.addLast("httpCodec", new HttpServerCodec());
+        pipeline.addLast("httpAggregator", new HttpObjectAggregator(MAX_HTTP_CONTENT_LENGTH));
+        pipeline.addLast("dispatcher", legacyDispatcher);
+        pipeline.addLast("exceptionHandler", support.exceptionHandler);
+        return channel;
+    }
+
+    /**
+     * 基线的分发器：按请求类型安装WS升级处理器或HTTP分发器，随后移除自身
+     */
+    @ChannelHandler.Sharable
+    private static final class LegacyDispatcher extends SimpleChannelInboundHandler<Object> {
+        private final BenchmarkSupport support;
+        private final LegacyWsUpgrader wsUpgrader;
+
+        private LegacyDispatcher(BenchmarkSupport support, LegacyWsUpgrader wsUpgrader) {
+            this.support = support;
+            this.wsUpgrader = wsUpgrader;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof FullHttpRequest request) {
+                if (isWebSocketUpgrade(request)) {
+                    ctx.pipeline().addBefore("exceptionHandler", "wsUpgradeHandler", wsUpgrader);
+                } else {
+                    ctx.pipeline().addBefore("exceptionHandler", DispatchHandler.HTTP_DISPATCHER_NAME, support.httpDispatchHandler);
+                }
+                ctx.fireChannelRead(request.retain());
+                ctx.pipeline().remove(this);
+            } else {
+                ctx.fireChannelRead(ReferenceCountUtil.retain(msg));
+            }
+        }
+
+        private static boolean isWebSocketUpgrade(HttpRequest request) {
+            return request.method().equals(HttpMethod.GET)
+                    && request.headers().contains(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)
+                    && request.headers().contains(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE, true);
+        }
+    }
+
+    /**
+     * 基线的WebSocket升级处理器：每个连接以 getSimpleName() + identityHashCode 命名并逐个安装处理器，完成后移除自身
+     * <p>
+     * 基线向握手处理器传递请求时未增加引用计数，会在分发器释放请求时抛出异常；此处补上 retain，其余处理链操作与基线一致
+     */
+    @ChannelHandler.Sharable
+    private static final class LegacyWsUpgrader extends SimpleChannelInboundHandler<FullHttpRequest> {
+        private final ActiveWsManager activeWsManager;
+        private final WsProcessors processors;
+
+        private LegacyWsUpgrader(ActiveWsManager activeWsManager, WsProcessors processors) {
+            this.activeWsManager = activeWsManager;
+            this.processors = processors;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest req) {
+            activeWsManager.addConnection(PATH, ctx);
+
+            for (var handler : processors.createHandlers()) {
+                var name = handler.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(handler));
+                ctx.pipeline().addBefore("exceptionHandler", name, handler);
+            }
+
+            ctx.fireChannelRead(req.retain());
+            ctx.pipeline().remove(this);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.maibot.core.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.*;
+import org.maibot.sdk.network.HttpRequestProcessor;
+import org.maibot.sdk.network.HttpResponses;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP热路径基准
+ * <p>
+ * - smallJsonRequest / healthCheck：客户端字节 -> HTTP编解码 -> 分发器 -> 处理器 -> 响应字节<br>
+ * - dispatchOnly：跳过编解码，仅测量 DispatchHandler 与 HttpDispatchHandler
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class HttpDispatchBenchmark {
+    /// 回显JSON请求体的处理器
+    private static final class EchoProcessor extends HttpRequestProcessor {
+        private EchoProcessor() {
+            super(HttpMethod.POST, "/bench/echo", EchoProcessor.class);
+        }
+
+        @Override
+        public HttpResponse handleRequest(FullHttpRequest req) {
+            return HttpResponses.json(req, HttpResponseStatus.OK, req.content().toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private BenchmarkSupport support;
+    private EmbeddedChannel httpChannel;
+    private EmbeddedChannel dispatchChannel;
+
+    private ByteBuf echoBytes;
+    private ByteBuf pingBytes;
+    private FullHttpRequest echoRequest;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        support = new BenchmarkSupport();
+        support.httpDispatchHandler.registerProcessor(new EchoProcessor());
+
+        httpChannel = support.newHttpChannel();
+        dispatchChannel = new EmbeddedChannel();
+        dispatchChannel.pipeline()
+                .addLast("dispatcher", support.dispatchHandler)
+                .addLast(DispatchHandler.HTTP_DISPATCHER_NAME, support.httpDispatchHandler)
+                .addLast("exceptionHandler", support.exceptionHandler);
+
+        echoBytes = BenchmarkSupport.encodeRequest(BenchmarkSupport.jsonRequest("/bench/echo"));
+        var ping = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/ping");
+        ping.headers().set(HttpHeaderNames.HOST, "localhost");
+        pingBytes = BenchmarkSupport.encodeRequest(ping);
+        echoRequest = BenchmarkSupport.jsonRequest("/bench/echo");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpChannel.finishAndReleaseAll();
+        dispatchChannel.finishAndReleaseAll();
+        echoRequest.release();
+        support.shutdown();
+    }
+
+    @Benchmark
+    public int smallJsonRequest() {
+        httpChannel.writeInbound(echoBytes.duplicate());
+        return BenchmarkSupport.drainOutbound(httpChannel);
+    }
+
+    @Benchmark
+    public int healthCheck() {
+        httpChannel.writeInbound(pingBytes.duplicate());
+        return BenchmarkSupport.drainOutbound(httpChannel);
+    }
+
+    @Benchmark
+    public int dispatchOnly() {
+        dispatchChannel.writeInbound(echoRequest.retainedDuplicate());
+        return BenchmarkSupport.drainOutbound(dispatchChannel);
+    }
+}
@@ -0,0 +1,95 @@
+package org.maibot.core.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.maibot.sdk.network.WsEnvelope;
+import org.maibot.sdk.network.WsEnvelopeCodec;
+import org.maibot.sdk.network.WsProcessors;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocket热路径基准（握手后的 WsProcessors 处理链）
+ * <p>
+ * - textFrame / envelopeFrame：客户端带掩码的帧字节 -> 帧解码 ->（信封解码）-> 回显处理器 -> 帧编码<br>
+ * - managerSend：经由 ActiveWsManager 与出站队列发送一帧
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WsFrameBenchmark {
+    private static final String PATH = "/bench/ws";
+
+    @ChannelHandler.Sharable
+    private static final class EchoTextHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame msg) {
+            ctx.writeAndFlush(msg.retain());
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class EchoEnvelopeHandler extends SimpleChannelInboundHandler<WsEnvelope> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WsEnvelope msg) {
+            ctx.writeAndFlush(msg.retain());
+        }
+    }
+
+    private BenchmarkSupport support;
+    private EmbeddedChannel channel;
+
+    private ByteBuf textBytes;
+    private ByteBuf envelopeBytes;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        support = new BenchmarkSupport();
+        support.wsDispatchHandler.registerProcessor(
+                new WsProcessors(PATH, List.of(new EchoTextHandler(), new EchoEnvelopeHandler())).enableEnvelopeCodec()
+        );
+
+        channel = support.newHttpChannel();
+        channel.writeInbound(BenchmarkSupport.encodeRequest(BenchmarkSupport.upgradeRequest(PATH)).duplicate());
+        BenchmarkSupport.drainOutbound(channel);
+
+        textBytes = BenchmarkSupport.encodeClientFrame(new TextWebSocketFrame(BenchmarkSupport.SMALL_JSON));
+        var envelope = new WsEnvelope(1, "G-123456", Unpooled.copiedBuffer(BenchmarkSupport.SMALL_JSON, StandardCharsets.UTF_8));
+        envelopeBytes = BenchmarkSupport.encodeClientFrame(WsEnvelopeCodec.encode(ByteBufAllocator.DEFAULT, List.of(envelope)));
+        envelope.release();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        support.shutdown();
+    }
+
+    @Benchmark
+    public int textFrame() {
+        channel.writeInbound(textBytes.duplicate());
+        return BenchmarkSupport.drainOutbound(channel);
+    }
+
+    @Benchmark
+    public int envelopeFrame() {
+        channel.writeInbound(envelopeBytes.duplicate());
+        return BenchmarkSupport.drainOutbound(channel);
+    }
+
+    @Benchmark
+    public int managerSend() {
+        support.activeWsManager.send(PATH, new TextWebSocketFrame(BenchmarkSupport.SMALL_JSON));
+        channel.runPendingTasks();
+        return BenchmarkSupport.drainOutbound(channel);
+    }
+}
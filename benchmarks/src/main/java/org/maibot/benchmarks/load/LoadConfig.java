@@ -0,0 +1,77 @@
+package org.maibot.benchmarks.load;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 负载生成器的参数
+ * <p>
+ * 命令行参数形如 <code>adapters=8 rate=500 duration=60</code>，未指定的参数使用缺省值
+ *
+ * @param adapters     模拟的Adapter数量（每个Adapter一个连接）
+ * @param transport    Adapter使用的协议（ws / http）
+ * @param rate         每个Adapter每秒发送的消息数
+ * @param duration     压测时长（秒），不含预热
+ * @param warmup       预热时长（秒），预热期间的延迟不计入结果
+ * @param groups       群聊流数量
+ * @param users        私聊流数量
+ * @param privateRatio 私聊消息占比（0 ~ 1）
+ * @param messageSize  消息载荷字节数（至少8字节，用于携带发送时间）
+ * @param workers      服务端Worker线程数
+ */
+record LoadConfig(
+        int adapters,
+        String transport,
+        int rate,
+        int duration,
+        int warmup,
+        int groups,
+        int users,
+        double privateRatio,
+        int messageSize,
+        int workers
+) {
+    static LoadConfig parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (var arg : args) {
+            var idx = arg.indexOf('=');
+            if (idx <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, idx), arg.substring(idx + 1));
+        }
+
+        var config = new LoadConfig(
+                Integer.parseInt(options.getOrDefault("adapters", "4")),
+                options.getOrDefault("transport", "ws"),
+                Integer.parseInt(options.getOrDefault("rate", "200")),
+                Integer.parseInt(options.getOrDefault("duration", "30")),
+                Integer.parseInt(options.getOrDefault("warmup", "5")),
+                Integer.parseInt(options.getOrDefault("groups", "100")),
+                Integer.parseInt(options.getOrDefault("users", "1000")),
+                Double.parseDouble(options.getOrDefault("private_ratio", "0.3")),
+                Integer.parseInt(options.getOrDefault("message_size", "256")),
+                Integer.parseInt(options.getOrDefault("workers", String.valueOf(Runtime.getRuntime().availableProcessors())))
+        );
+        if (!config.transport.equals("ws") && !config.transport.equals("http")) {
+            throw new IllegalArgumentException("Unknown transport: " + config.transport);
+        }
+        if (config.adapters <= 0) {
+            throw new IllegalArgumentException("adapters must be positive: " + config.adapters);
+        }
+        // 发送间隔为 1e9 / rate 纳秒，超过 1e9 时间隔为0
+        if (config.rate <= 0 || config.rate > 1_000_000_000) {
+            throw new IllegalArgumentException("rate must be between 1 and 1000000000: " + config.rate);
+        }
+        if (config.groups <= 0) {
+            throw new IllegalArgumentException("groups must be positive: " + config.groups);
+        }
+        if (config.users <= 0) {
+            throw new IllegalArgumentException("users must be positive: " + config.users);
+        }
+        if (config.messageSize < Long.BYTES) {
+            throw new IllegalArgumentException("message_size must be at least " + Long.BYTES);
+        }
+        return config;
+    }
+}
@@ -0,0 +1,66 @@
+package org.maibot.benchmarks.load;
+
+import ch.qos.logback.classic.Level;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+
+/**
+ * 负载生成器
+ * <p>
+ * 在进程内启动 {@link org.maibot.core.net.InnerServer}，由N个模拟Adapter按配置的速率向群聊流与私聊流发送消息，
+ * 每秒输出吞吐与延迟，结束时输出总体的延迟分位数。
+ * <p>
+ * 在 core 目录下运行：<code>./gradlew :benchmarks:loadTest -PloadArgs="adapters=8 rate=500 duration=60"</code>
+ */
+public class LoadGenerator {
+    private static final Logger log = LoggerFactory.getLogger(LoadGenerator.class);
+
+    public static void main(String[] args) throws Exception {
+        // 仅保留压测报告，避免网络层日志影响结果
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.maibot.benchmarks")).setLevel(Level.INFO);
+
+        var config = LoadConfig.parse(args);
+        log.info("压测参数: {}", config);
+
+        var server = new LoadServer(config);
+        server.start();
+
+        var stats = new LoadStats();
+        var clientGroup = new MultiThreadIoEventLoopGroup(
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                new DefaultThreadFactory("Load-Client"),
+                NioIoHandler.newFactory()
+        );
+        var adapters = new ArrayList<SimulatedAdapter>();
+        try {
+            for (int idx = 0; idx < config.adapters(); idx++) {
+                var adapter = new SimulatedAdapter(config, stats, server.getPort());
+                adapter.connect(clientGroup);
+                adapters.add(adapter);
+            }
+            log.info("{} 个模拟Adapter已连接（{}），目标总速率: {} msg/s",
+                    config.adapters(), config.transport(), config.adapters() * config.rate());
+
+            for (int second = 0; second < config.warmup(); second++) {
+                Thread.sleep(1000);
+                stats.report();
+            }
+            stats.startRecording();
+            for (int second = 0; second < config.duration(); second++) {
+                Thread.sleep(1000);
+                stats.report();
+            }
+            stats.summary(config.duration());
+        } finally {
+            adapters.forEach(SimulatedAdapter::close);
+            clientGroup.shutdownGracefully().syncUninterruptibly();
+            server.stop();
+        }
+    }
+}
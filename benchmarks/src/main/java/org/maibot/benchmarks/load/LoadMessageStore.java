@@ -0,0 +1,60 @@
+package org.maibot.benchmarks.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * 负载测试使用的临时SQLite消息库
+ * <p>
+ * 与核心的数据库服务一样只使用一个连接，每条消息在独立的事务中写入；测试结束时删除数据库文件
+ */
+final class LoadMessageStore implements AutoCloseable {
+    private static final String CREATE_SQL = """
+            CREATE TABLE message (
+                id INTEGER PRIMARY KEY AUTOINCREMENT,
+                stream_key INTEGER NOT NULL,
+                payload BLOB NOT NULL
+            )
+            """;
+    private static final String INSERT_SQL = "INSERT INTO message (stream_key, payload) VALUES (?, ?)";
+
+    private final Path file;
+    private final Connection connection;
+    private final PreparedStatement insert;
+
+    LoadMessageStore() throws IOException, SQLException {
+        this.file = Files.createTempFile("maibot-load-", ".db");
+        this.connection = DriverManager.getConnection("jdbc:sqlite:" + file);
+        try (var stmt = connection.createStatement()) {
+            stmt.execute(CREATE_SQL);
+        }
+        this.insert = connection.prepareStatement(INSERT_SQL);
+    }
+
+    /**
+     * 写入一条消息
+     *
+     * @param streamKey 交互流键
+     * @param payload   消息载荷
+     */
+    synchronized void store(long streamKey, byte[] payload) throws SQLException {
+        insert.setLong(1, streamKey);
+        insert.setBytes(2, payload);
+        insert.executeUpdate();
+    }
+
+    @Override
+    public synchronized void close() throws IOException, SQLException {
+        try {
+            insert.close();
+            connection.close();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
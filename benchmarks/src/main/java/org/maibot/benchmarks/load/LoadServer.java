@@ -0,0 +1,234 @@
+package org.maibot.benchmarks.load;
+
+import com.google.gson.Gson;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.*;
+import org.maibot.core.config.MainConfig;
+import org.maibot.core.net.*;
+import org.maibot.core.thinking.FlowExecutor;
+import org.maibot.core.thinking.StreamKey;
+import org.maibot.core.util.MetricsRegistry;
+import org.maibot.core.util.TaskExecutorService;
+import org.maibot.sdk.network.AsyncHttpRequestProcessor;
+import org.maibot.sdk.network.WsEnvelope;
+import org.maibot.sdk.network.WsEnvelopeCodec;
+import org.maibot.sdk.network.WsProcessors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内的 {@link InnerServer} 与替身Adapter接入端
+ * <p>
+ * 核心尚未提供Adapter消息的接入处理，替身接入端按核心处理消息的方式：将每条消息投递到交互流所属的 {@link FlowExecutor} 通道，
+ * 在通道上写入临时SQLite库（{@link LoadMessageStore}）后再确认：<br>
+ * - WebSocket：经由收到消息的连接的出站队列回发携带原载荷的确认信封<br>
+ * - HTTP：<code>POST /load/message/{streamId}</code> 以异步处理器返回请求体
+ */
+final class LoadServer {
+    private static final Logger log = LoggerFactory.getLogger(LoadServer.class);
+
+    static final String WS_PATH = "/load/adapter";
+    static final String HTTP_PATH = "/load/message/{streamId}";
+
+    /// 消息信封类型
+    static final int TYPE_MESSAGE = 1;
+    /// 确认信封类型
+    static final int TYPE_ACK = 2;
+
+    private final TaskExecutorService taskExecutorService;
+    private final FlowExecutor flowExecutor;
+    private final LoadMessageStore messageStore;
+    private final InnerServer innerServer;
+    private final Thread serverThread;
+    private final int port;
+
+    LoadServer(LoadConfig config) throws IOException, SQLException {
+        this.port = freePort();
+
+        var json = Map.of(
+                "host", "127.0.0.1",
+                "port", port,
+                "worker_threads", config.workers(),
+                "ws_pool_size", config.adapters(),
+                "ws_select_strategy", "sticky"
+        );
+        var conf = new Gson().fromJson(new Gson().toJson(json), MainConfig.Network.class);
+
+        // 按 InnerServer 的依赖关系手动装配（不经过IoC容器，无需配置文件）
+        this.taskExecutorService = new TaskExecutorService();
+        this.messageStore = new LoadMessageStore();
+        var rateLimiter = new RateLimiter(conf);
+        var activeWsManager = new ActiveWsManager(conf);
+        var admissionHandler = new AdmissionHandler(conf, rateLimiter);
+        // 通道数缺省，与核心一致
+        var metricsRegistry = new MetricsRegistry();
+        this.flowExecutor = new FlowExecutor(new Gson().fromJson("{}", MainConfig.Thinking.class), metricsRegistry);
+        var networkMetrics = new NetworkMetrics(activeWsManager, admissionHandler, metricsRegistry);
+        var httpDispatchHandler = new HttpDispatchHandler(taskExecutorService, rateLimiter, networkMetrics);
+        var wsDispatchHandler = new WsDispatchHandler(activeWsManager, rateLimiter);
+
+        httpDispatchHandler.registerProcessor(new MessageProcessor(flowExecutor, messageStore));
+        wsDispatchHandler.registerProcessor(
+                new WsProcessors(WS_PATH, List.of(new AckHandler(flowExecutor, messageStore))).enableEnvelopeCodec()
+        );
+
+        this.innerServer = new InnerServer(
+                conf,
+                new DispatchHandler(wsDispatchHandler),
+                httpDispatchHandler,
+                new RawDispatchHandler(rateLimiter),
+                admissionHandler,
+                activeWsManager,
+                networkMetrics,
+                new ExceptionHandler()
+        );
+        this.serverThread = new Thread(innerServer::run, "Load-Server");
+    }
+
+    int getPort() {
+        return port;
+    }
+
+    void start() throws InterruptedException {
+        serverThread.start();
+
+        // 等待端口开始监听
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try (var socket = new Socket()) {
+                socket.connect(new InetSocketAddress("127.0.0.1", port), 100);
+                log.info("进程内服务已启动，端口: {}", port);
+                return;
+            } catch (IOException e) {
+                Thread.sleep(50);
+            }
+        }
+        throw new IllegalStateException("InnerServer did not start listening on port " + port);
+    }
+
+    void stop() {
+        innerServer.shutdown();
+        taskExecutorService.shutdown();
+        flowExecutor.shutdown(1, TimeUnit.SECONDS);
+        try {
+            messageStore.close();
+        } catch (Exception e) {
+            log.warn("关闭临时消息库失败", e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * 替身接入端（WebSocket）：消息写入后经由原连接回发携带原载荷的确认信封
+     */
+    @ChannelHandler.Sharable
+    private static final class AckHandler extends SimpleChannelInboundHandler<WsEnvelope> {
+        private final FlowExecutor flowExecutor;
+        private final LoadMessageStore messageStore;
+
+        private AckHandler(FlowExecutor flowExecutor, LoadMessageStore messageStore) {
+            this.flowExecutor = flowExecutor;
+            this.messageStore = messageStore;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WsEnvelope msg) {
+            if (msg.getType() != TYPE_MESSAGE) {
+                return;
+            }
+            long streamKey;
+            try {
+                streamKey = StreamKey.parseKey(msg.getStreamId());
+            } catch (IllegalArgumentException e) {
+                log.warn("忽略交互流ID无效的消息: {}", msg.getStreamId());
+                return;
+            }
+
+            var streamId = msg.getStreamId();
+            var payload = ByteBufUtil.getBytes(msg.content());
+            var channel = ctx.channel();
+            flowExecutor.execute(streamKey, () -> {
+                try {
+                    messageStore.store(streamKey, payload);
+                } catch (SQLException e) {
+                    log.error("写入消息失败: {}", streamId, e);
+                    return;
+                }
+                var ack = new WsEnvelope(TYPE_ACK, streamId, Unpooled.wrappedBuffer(payload));
+                // 确认必须回到发出消息的连接，不能经由 ActiveWsManager 按交互流重新选择连接
+                var frame = WsEnvelopeCodec.encode(channel.alloc(), List.of(ack));
+                ack.release();
+                var queue = WsOutboundQueue.of(channel);
+                if (queue == null) {
+                    channel.writeAndFlush(frame);
+                } else {
+                    queue.offer(frame);
+                }
+            });
+        }
+    }
+
+    /**
+     * 替身接入端（HTTP）：消息写入后返回请求体
+     */
+    private static final class MessageProcessor extends AsyncHttpRequestProcessor {
+        private final FlowExecutor flowExecutor;
+        private final LoadMessageStore messageStore;
+
+        private MessageProcessor(FlowExecutor flowExecutor, LoadMessageStore messageStore) {
+            super(HttpMethod.POST, HTTP_PATH, MessageProcessor.class);
+            this.flowExecutor = flowExecutor;
+            this.messageStore = messageStore;
+        }
+
+        @Override
+        public CompletionStage<HttpResponse> handleRequestAsync(FullHttpRequest req, Map<String, String> pathParams, Executor executor) {
+            var version = req.protocolVersion();
+            long streamKey;
+            try {
+                streamKey = StreamKey.parseKey(pathParams.get("streamId"));
+            } catch (IllegalArgumentException e) {
+                return CompletableFuture.completedFuture(new DefaultFullHttpResponse(version, HttpResponseStatus.BAD_REQUEST));
+            }
+
+            // 复制载荷，请求在结果完成后由核心释放
+            var payload = ByteBufUtil.getBytes(req.content());
+            var future = new CompletableFuture<HttpResponse>();
+            flowExecutor.execute(streamKey, () -> {
+                try {
+                    messageStore.store(streamKey, payload);
+                    future.complete(new DefaultFullHttpResponse(version, HttpResponseStatus.OK, Unpooled.wrappedBuffer(payload)));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+
+        @Override
+        public HttpResponse handleRequest(FullHttpRequest req) {
+            // 请求总由 handleRequestAsync 处理，不会走到此处
+            throw new UnsupportedOperationException("Handled by handleRequestAsync");
+        }
+    }
+}
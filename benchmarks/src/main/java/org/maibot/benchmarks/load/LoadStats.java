@@ -0,0 +1,94 @@
+package org.maibot.benchmarks.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测统计
+ * <p>
+ * 延迟以消息的计划发送时间为起点（而非实际发送时间），避免发送端落后时低估延迟（coordinated omission）
+ */
+final class LoadStats {
+    private static final Logger log = LoggerFactory.getLogger(LoadStats.class);
+
+    private final Recorder recorder = new Recorder(TimeUnit.SECONDS.toMicros(60), 3);
+    private final Histogram total = new Histogram(TimeUnit.SECONDS.toMicros(60), 3);
+    private Histogram interval;
+
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private volatile boolean recording = false;
+    private long lastAcked = 0;
+    private long lastReportNanos = System.nanoTime();
+
+    void recordSent() {
+        sent.increment();
+    }
+
+    void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * 记录一条已确认的消息
+     *
+     * @param intendedNanos 消息的计划发送时间
+     */
+    void recordAck(long intendedNanos) {
+        acked.increment();
+        if (recording) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedNanos);
+            recorder.recordValue(Math.min(Math.max(micros, 0), total.getHighestTrackableValue()));
+        }
+    }
+
+    /// 结束预热，开始记录延迟
+    void startRecording() {
+        recorder.reset();
+        recording = true;
+    }
+
+    /// 输出上次报告以来的吞吐量与延迟，并累计到总体结果
+    synchronized void report() {
+        long now = System.nanoTime();
+        long ackedNow = acked.sum();
+        double seconds = (now - lastReportNanos) / 1e9;
+        double throughput = (ackedNow - lastAcked) / seconds;
+        lastAcked = ackedNow;
+        lastReportNanos = now;
+
+        interval = recorder.getIntervalHistogram(interval);
+        if (recording) {
+            total.add(interval);
+        }
+        log.info("{} 吞吐: {} msg/s, p50: {}ms, p99: {}ms, max: {}ms, 错误: {}",
+                recording ? "[压测]" : "[预热]",
+                String.format("%.0f", throughput),
+                millis(interval.getValueAtPercentile(50)),
+                millis(interval.getValueAtPercentile(99)),
+                millis(interval.getMaxValue()),
+                errors.sum());
+    }
+
+    /// 输出总体结果
+    synchronized void summary(int durationSeconds) {
+        log.info("==== 压测结果 ====");
+        log.info("发送: {}, 确认: {}, 错误: {}, 平均吞吐: {} msg/s",
+                sent.sum(), acked.sum(), errors.sum(), String.format("%.0f", total.getTotalCount() / (double) durationSeconds));
+        for (var percentile : new double[]{50, 90, 99, 99.9, 99.99}) {
+            log.info("p{}: {}ms", percentile, millis(total.getValueAtPercentile(percentile)));
+        }
+        log.info("max: {}ms", millis(total.getMaxValue()));
+    }
+
+    private static String millis(long micros) {
+        return String.format("%.3f", micros / 1000.0);
+    }
+}
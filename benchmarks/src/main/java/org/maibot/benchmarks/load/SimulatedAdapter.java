@@ -0,0 +1,162 @@
+package org.maibot.benchmarks.load;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.*;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.util.concurrent.ScheduledFuture;
+import org.maibot.sdk.network.WsEnvelope;
+import org.maibot.sdk.network.WsEnvelopeCodec;
+
+import java.net.URI;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟的Adapter：以固定速率向群聊流与私聊流发送消息，并根据确认计算端到端延迟
+ * <p>
+ * 载荷的前8字节为消息的计划发送时间（System.nanoTime），确认消息原样携带该载荷
+ */
+final class SimulatedAdapter {
+    private final LoadConfig config;
+    private final LoadStats stats;
+    private final int port;
+
+    private Channel channel;
+    private ScheduledFuture<?> sendTask;
+
+    SimulatedAdapter(LoadConfig config, LoadStats stats, int port) {
+        this.config = config;
+        this.stats = stats;
+        this.port = port;
+    }
+
+    /**
+     * 建立连接，连接就绪（WebSocket握手完成）后开始发送
+     *
+     * @param group 客户端事件循环组
+     */
+    void connect(EventLoopGroup group) throws InterruptedException {
+        var bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        var pipeline = ch.pipeline();
+                        pipeline.addLast(new HttpClientCodec());
+                        pipeline.addLast(new HttpObjectAggregator(1024 * 1024));
+                        if (config.transport().equals("ws")) {
+                            var wsConfig = WebSocketClientProtocolConfig.newBuilder()
+                                    .webSocketUri(URI.create("ws://127.0.0.1:" + port + LoadServer.WS_PATH))
+                                    .build();
+                            pipeline.addLast(new WebSocketClientProtocolHandler(wsConfig));
+                            pipeline.addLast(WsEnvelopeCodec.INSTANCE);
+                            pipeline.addLast(new WsAckHandler());
+                        } else {
+                            pipeline.addLast(new HttpAckHandler());
+                        }
+                    }
+                });
+        this.channel = bootstrap.connect("127.0.0.1", port).sync().channel();
+    }
+
+    void close() {
+        if (sendTask != null) {
+            sendTask.cancel(false);
+        }
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+    }
+
+    /**
+     * 在连接的事件循环上以固定速率发送
+     */
+    private void startSending(ChannelHandlerContext ctx) {
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long startNanos = System.nanoTime();
+        var seq = new long[]{0};
+        sendTask = ctx.executor().scheduleAtFixedRate(() -> {
+            // 以计划发送时间作为延迟起点，发送端落后时延迟如实增大
+            long intended = startNanos + seq[0]++ * periodNanos;
+            send(ctx, nextStreamId(), payload(ctx.alloc(), intended));
+        }, 0, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void send(ChannelHandlerContext ctx, String streamId, ByteBuf payload) {
+        Object msg;
+        if (config.transport().equals("ws")) {
+            msg = new WsEnvelope(LoadServer.TYPE_MESSAGE, streamId, payload);
+        } else {
+            var req = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST,
+                    LoadServer.HTTP_PATH.replace("{streamId}", streamId), payload);
+            req.headers()
+                    .set(HttpHeaderNames.HOST, "127.0.0.1")
+                    .set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_OCTET_STREAM)
+                    .set(HttpHeaderNames.CONTENT_LENGTH, payload.readableBytes());
+            msg = req;
+        }
+        stats.recordSent();
+        ctx.channel().writeAndFlush(msg).addListener(future -> {
+            if (!future.isSuccess()) {
+                stats.recordError();
+            }
+        });
+    }
+
+    private String nextStreamId() {
+        var random = ThreadLocalRandom.current();
+        if (random.nextDouble() < config.privateRatio()) {
+            return "P-" + random.nextInt(config.users());
+        }
+        return "G-" + random.nextInt(config.groups());
+    }
+
+    private ByteBuf payload(ByteBufAllocator alloc, long intendedNanos) {
+        var buf = alloc.buffer(config.messageSize());
+        buf.writeLong(intendedNanos);
+        buf.writeZero(config.messageSize() - Long.BYTES);
+        return buf;
+    }
+
+    private final class WsAckHandler extends SimpleChannelInboundHandler<WsEnvelope> {
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                startSending(ctx);
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WsEnvelope msg) {
+            if (msg.getType() == LoadServer.TYPE_ACK) {
+                stats.recordAck(msg.content().getLong(msg.content().readerIndex()));
+            }
+        }
+    }
+
+    private final class HttpAckHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) throws Exception {
+            startSending(ctx);
+            super.channelActive(ctx);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse msg) {
+            if (msg.status().equals(HttpResponseStatus.OK) && msg.content().readableBytes() >= Long.BYTES) {
+                stats.recordAck(msg.content().getLong(msg.content().readerIndex()));
+            } else {
+                stats.recordError();
+            }
+        }
+    }
+}
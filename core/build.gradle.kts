@@ -41,6 +41,12 @@ dependencies {
     // Netty for networking
     implementation("io.netty:netty-all:4.2.6.Final")
 
+    // HdrHistogram for latency metrics
+    implementation("org.hdrhistogram:HdrHistogram:2.2.2")
+
+    // JCTools for primitive-keyed concurrent maps
+    implementation("org.jctools:jctools-core:4.0.5")
+
     // Command-line interface
     implementation("info.picocli:picocli-shell-jline3:4.7.7")
     implementation("org.fusesource.jansi:jansi:2.4.2")
@@ -1,4 +1,7 @@
 rootProject.name = "MaiBot-java"
 
 include(":sdk")
-project(":sdk").projectDir = file("../sdk")
\ No newline at end of file
+project(":sdk").projectDir = file("../sdk")
+
+include(":benchmarks")
+project(":benchmarks").projectDir = file("../benchmarks")
\ No newline at end of file
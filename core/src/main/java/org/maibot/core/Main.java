@@ -98,8 +98,9 @@ public class Main {
 
                 Thread shutdownThread = new Thread(() -> {
                     log.warn("正在关闭 MaiBot...");
-                    thinkingFlowManager.shutdown();
+                    // 先排空网络服务，使进行中的请求与待发送的消息在依赖的组件关闭前完成
                     innerServer.shutdown();
+                    thinkingFlowManager.shutdown();
                     systemChannel.close();
                     databaseService.close();
                     taskExecutorService.shutdown();
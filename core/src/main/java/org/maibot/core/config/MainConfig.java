@@ -2,6 +2,7 @@ package org.maibot.core.config;
 
 import com.google.gson.annotations.SerializedName;
 import lombok.AllArgsConstructor;
+import org.maibot.core.util.Nullable;
 
 import java.util.List;
 
@@ -49,6 +50,70 @@ public final class MainConfig {
     public static final class Network {
         public final String host;
         public final Integer port;
+
+        /// 传输层实现（auto / nio / epoll / io_uring），缺省为auto
+        @Nullable
+        public final String transport;
+
+        /// Worker事件循环线程数，缺省为CPU核心数
+        @Nullable
+        @SerializedName("worker_threads")
+        public final Integer workerThreads;
+
+        /// 监听同一端口的Acceptor数量（大于1时依赖SO_REUSEPORT，仅epoll/io_uring可用），缺省为1
+        @Nullable
+        @SerializedName("acceptor_count")
+        public final Integer acceptorCount;
+
+        /// 每个WebSocket路径允许的最大并行连接数，缺省为1
+        @Nullable
+        @SerializedName("ws_pool_size")
+        public final Integer wsPoolSize;
+
+        /// 同一路径存在多个连接时的发送连接选择策略（round_robin / least_pending / sticky），缺省为round_robin
+        @Nullable
+        @SerializedName("ws_select_strategy")
+        public final String wsSelectStrategy;
+
+        /// 每个WebSocket连接出站队列的最大帧数，缺省为1024
+        @Nullable
+        @SerializedName("ws_outbound_queue_capacity")
+        public final Integer wsOutboundQueueCapacity;
+
+        /// 裸TCP连接单帧的最大长度（字节），缺省为5MB
+        @Nullable
+        @SerializedName("raw_max_frame_length")
+        public final Integer rawMaxFrameLength;
+
+        /// 全局最大连接数，缺省为0（不限制）
+        @Nullable
+        @SerializedName("max_connections")
+        public final Integer maxConnections;
+
+        /// HTTP连接空闲（无读写）多少秒后关闭，缺省为300，0表示不回收（WebSocket与裸TCP连接不受影响）
+        @Nullable
+        @SerializedName("idle_timeout")
+        public final Integer idleTimeout;
+
+        /// 每个远端地址每秒允许的请求/消息数，缺省不限制
+        @Nullable
+        @SerializedName("rate_limit")
+        public final Integer rateLimit;
+
+        /// 每个远端地址允许的突发请求/消息数，缺省与rate_limit相同
+        @Nullable
+        @SerializedName("rate_limit_burst")
+        public final Integer rateLimitBurst;
+
+        /// 每个WebSocket路径每秒允许的入站消息数（该路径的所有连接共享），缺省不限制
+        @Nullable
+        @SerializedName("ws_rate_limit")
+        public final Integer wsRateLimit;
+
+        /// 关闭时等待进行中的请求与出站队列完成的最长秒数，缺省为10
+        @Nullable
+        @SerializedName("drain_timeout")
+        public final Integer drainTimeout;
     }
 
     @AllArgsConstructor
@@ -66,6 +131,26 @@ public final class MainConfig {
     public static final class Thinking {
         @SerializedName("observation_window_size")
         public final Integer observationWindowSize;
+
+        /// 思维流执行通道数（同一交互流的工作在同一通道上串行执行），缺省为CPU核心数
+        @Nullable
+        @SerializedName("flow_lanes")
+        public final Integer flowLanes;
+
+        /// 交互流无新消息多少秒后转入休眠，缺省为600
+        @Nullable
+        @SerializedName("sleep_after")
+        public final Integer sleepAfter;
+
+        /// 休眠的交互流无新消息多少秒后从内存中回收（再次收到消息时自动载入），缺省为3600，0表示不回收
+        @Nullable
+        @SerializedName("evict_after")
+        public final Integer evictAfter;
+
+        /// 交互流状态写回数据库的间隔秒数，缺省为10
+        @Nullable
+        @SerializedName("checkpoint_interval")
+        public final Integer checkpointInterval;
     }
 
     @SerializedName("log")
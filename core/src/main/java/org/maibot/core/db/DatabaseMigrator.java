@@ -0,0 +1,358 @@
+package org.maibot.core.db;
+
+import org.semver4j.Semver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 数据库结构迁移
+ * <p>
+ * 在创建 EntityManagerFactory 之前通过JDBC执行，使 Hibernate 看到的总是当前版本的表结构。<br>
+ * 每个迁移步骤在一个事务中执行，完成后更新 db_version 中的版本号。
+ * <p>
+ * SQLite 不支持修改列的类型，需要修改列类型的表按 新建 → 复制 → 删除 → 重命名 的方式重建
+ */
+final class DatabaseMigrator {
+    private static final Logger log = LoggerFactory.getLogger(DatabaseMigrator.class);
+
+    @FunctionalInterface
+    private interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * 迁移步骤
+     *
+     * @param from 起始版本
+     * @param to   目标版本
+     * @param step 迁移操作
+     */
+    private record Migration(String from, String to, Step step) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration("0.1.0", "0.2.0", DatabaseMigrator::packStreamKeys)
+    );
+
+    private DatabaseMigrator() {
+    }
+
+    /**
+     * 将数据库迁移到目标版本
+     * <p>
+     * 新建的数据库（尚无版本记录）与无法迁移的版本不做处理，由 {@link DatabaseService} 建表或报告不兼容
+     *
+     * @param jdbcUrl JDBC连接地址
+     * @param target  目标版本
+     */
+    static void migrate(String jdbcUrl, Semver target) {
+        try (var conn = DriverManager.getConnection(jdbcUrl)) {
+            var current = readVersion(conn);
+            if (current == null) {
+                return;
+            }
+
+            conn.setAutoCommit(false);
+            while (!target.isEqualTo(current)) {
+                var version = current;
+                var migration = MIGRATIONS.stream().filter(m -> m.from().equals(version)).findFirst().orElse(null);
+                if (migration == null) {
+                    return;
+                }
+
+                log.info("迁移数据库结构: {} -> {}", migration.from(), migration.to());
+                try {
+                    migration.step().apply(conn);
+                    try (var stmt = conn.prepareStatement("UPDATE db_version SET version = ? WHERE id = 0")) {
+                        stmt.setString(1, migration.to());
+                        stmt.executeUpdate();
+                    }
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                }
+                current = migration.to();
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to migrate database to version " + target.getVersion(), e);
+        }
+    }
+
+    private static String readVersion(Connection conn) throws SQLException {
+        if (!tableExists(conn, "db_version")) {
+            return null;
+        }
+        try (var stmt = conn.createStatement();
+             var rs = stmt.executeQuery("SELECT version FROM db_version WHERE id = 0")) {
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
+    private static boolean tableExists(Connection conn, String table) throws SQLException {
+        try (var stmt = conn.prepareStatement("SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            stmt.setString(1, table);
+            try (var rs = stmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * 0.1.0 -> 0.2.0：交互流ID由字符串（<code>G-123</code> / <code>P-456</code>）改为压缩的整数键
+     * <code>(id << 1) | (是否私聊 ? 1 : 0)</code>，同步转换消息表中引用交互流的列
+     */
+    private static void packStreamKeys(Connection conn) throws SQLException {
+        rebuildTable(conn, "interaction_stream", Map.of("id", packedKeyExpr("id")));
+        rebuildTable(conn, "message", Map.of("stream_id", packedKeyExpr("stream_id")));
+    }
+
+    private static String packedKeyExpr(String column) {
+        var col = quote(column);
+        return "((CAST(substr(" + col + ", 3) AS INTEGER) << 1) | (CASE WHEN substr(" + col + ", 1, 1) = 'P' THEN 1 ELSE 0 END))";
+    }
+
+    /**
+     * 重建表并转换指定列为 bigint
+     * <p>
+     * 新表的定义由 sqlite_master 中原表的 CREATE TABLE 语句改写而来，只替换被转换列的类型，
+     * 因此主键、外键（含复合外键与 ON DELETE / ON UPDATE 动作）、表级 UNIQUE 与 CHECK 约束均原样保留；
+     * 原表的索引与触发器在重命名后按原语句重新创建
+     *
+     * @param conn      数据库连接
+     * @param table     表名
+     * @param converted 列名 -> 由旧值计算新值的SQL表达式
+     */
+    private static void rebuildTable(Connection conn, String table, Map<String, String> converted) throws SQLException {
+        String createSql;
+        try (var stmt = conn.prepareStatement("SELECT sql FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            stmt.setString(1, table);
+            try (var rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return;
+                }
+                createSql = rs.getString(1);
+            }
+        }
+        var newTable = table + "_new";
+
+        var columnNames = new ArrayList<String>();
+        var selectExprs = new ArrayList<String>();
+        try (var stmt = conn.createStatement();
+             var rs = stmt.executeQuery("PRAGMA table_info(" + quote(table) + ")")) {
+            while (rs.next()) {
+                var name = rs.getString("name");
+                columnNames.add(quote(name));
+                selectExprs.add(converted.getOrDefault(name, quote(name)));
+            }
+        }
+
+        // 删除表时索引与触发器一并删除，重命名后重新创建（自动索引随约束重建，其 sql 为 NULL）
+        var dependents = new ArrayList<String>();
+        try (var stmt = conn.prepareStatement("SELECT sql FROM sqlite_master WHERE type IN ('index', 'trigger') AND tbl_name = ? AND sql IS NOT NULL")) {
+            stmt.setString(1, table);
+            try (var rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    dependents.add(rs.getString(1));
+                }
+            }
+        }
+
+        try (var stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE " + quote(newTable) + " " + retypeColumns(createSql, converted.keySet(), "bigint"));
+            stmt.executeUpdate("INSERT INTO " + quote(newTable) + " (" + String.join(", ", columnNames) + ") SELECT "
+                    + String.join(", ", selectExprs) + " FROM " + quote(table));
+            stmt.executeUpdate("DROP TABLE " + quote(table));
+            stmt.executeUpdate("ALTER TABLE " + quote(newTable) + " RENAME TO " + quote(table));
+            for (var sql : dependents) {
+                stmt.executeUpdate(sql);
+            }
+        }
+        log.debug("已重建表 {}，转换的列: {}", table, converted.keySet());
+    }
+
+    /// 列定义中类型名之后可能出现的列约束关键字
+    private static final Set<String> COLUMN_CONSTRAINT_KEYWORDS = Set.of(
+            "CONSTRAINT", "PRIMARY", "NOT", "NULL", "UNIQUE", "CHECK", "DEFAULT", "COLLATE", "REFERENCES", "GENERATED", "AS"
+    );
+    /// 表约束的起始关键字
+    private static final Set<String> TABLE_CONSTRAINT_KEYWORDS = Set.of("CONSTRAINT", "PRIMARY", "UNIQUE", "CHECK", "FOREIGN");
+
+    /**
+     * 改写 CREATE TABLE 语句中指定列的类型
+     *
+     * @param createSql 原表的 CREATE TABLE 语句
+     * @param columns   需要改写类型的列名（不区分大小写）
+     * @param type      新的类型
+     * @return 从列定义的左括号开始的部分（含括号之后的表选项），其余文本原样保留
+     * @throws IllegalArgumentException 语句中没有完整的列定义
+     */
+    static String retypeColumns(String createSql, Set<String> columns, String type) {
+        int open = 0;
+        while (open < createSql.length() && createSql.charAt(open) != '(') {
+            open = skipQuotedOrComment(createSql, open);
+        }
+
+        var sb = new StringBuilder(createSql.length() + 16).append('(');
+        int depth = 0;
+        int defStart = open + 1;
+        int pos = open + 1;
+        while (pos < createSql.length()) {
+            char c = createSql.charAt(pos);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && depth > 0) {
+                depth--;
+            } else if ((c == ',' || c == ')') && depth == 0) {
+                sb.append(retypeColumn(createSql.substring(defStart, pos), columns, type));
+                if (c == ')') {
+                    return sb.append(createSql, pos, createSql.length()).toString();
+                }
+                sb.append(',');
+                defStart = pos + 1;
+            }
+            pos = skipQuotedOrComment(createSql, pos);
+        }
+        throw new IllegalArgumentException("Malformed CREATE TABLE statement: " + createSql);
+    }
+
+    /**
+     * 改写单个列定义的类型，表约束与其他列原样返回
+     */
+    private static String retypeColumn(String def, Set<String> columns, String type) {
+        int start = skipSpace(def, 0);
+        if (start >= def.length()) {
+            return def;
+        }
+
+        int nameEnd;
+        String name;
+        if (isQuote(def.charAt(start))) {
+            nameEnd = skipQuotedOrComment(def, start);
+            name = unquote(def.substring(start, nameEnd));
+        } else {
+            nameEnd = skipWord(def, start);
+            name = def.substring(start, nameEnd);
+            if (TABLE_CONSTRAINT_KEYWORDS.contains(name.toUpperCase(Locale.ROOT))) {
+                return def;
+            }
+        }
+        if (columns.stream().noneMatch(name::equalsIgnoreCase)) {
+            return def;
+        }
+
+        // 类型名由若干单词与可选的括号参数组成，遇到列约束关键字或其他符号时结束
+        int typeEnd = nameEnd;
+        int pos = skipSpace(def, nameEnd);
+        while (pos < def.length()) {
+            char c = def.charAt(pos);
+            if (c == '(') {
+                pos = skipParens(def, pos);
+            } else if (isWordChar(c)) {
+                int wordEnd = skipWord(def, pos);
+                if (COLUMN_CONSTRAINT_KEYWORDS.contains(def.substring(pos, wordEnd).toUpperCase(Locale.ROOT))) {
+                    break;
+                }
+                pos = wordEnd;
+            } else {
+                break;
+            }
+            typeEnd = pos;
+            pos = skipSpace(def, pos);
+        }
+        return def.substring(0, nameEnd) + " " + type + def.substring(typeEnd);
+    }
+
+    private static boolean isQuote(char c) {
+        return c == '"' || c == '`' || c == '[' || c == '\'';
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    private static int skipSpace(String sql, int pos) {
+        while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipWord(String sql, int pos) {
+        while (pos < sql.length() && isWordChar(sql.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static int skipParens(String sql, int pos) {
+        int depth = 0;
+        while (pos < sql.length()) {
+            char c = sql.charAt(pos);
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return pos + 1;
+            }
+            pos = skipQuotedOrComment(sql, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * 跳过从 pos 开始的引号标识符/字符串或注释；pos 处不是它们的起始时只前进一个字符
+     *
+     * @return 跳过后的位置
+     */
+    private static int skipQuotedOrComment(String sql, int pos) {
+        char c = sql.charAt(pos);
+        if (isQuote(c)) {
+            char close = c == '[' ? ']' : c;
+            int idx = pos + 1;
+            while (idx < sql.length()) {
+                if (sql.charAt(idx) == close) {
+                    // 引号内以两个连续的引号表示引号本身（方括号不支持转义）
+                    if (close != ']' && idx + 1 < sql.length() && sql.charAt(idx + 1) == close) {
+                        idx += 2;
+                        continue;
+                    }
+                    return idx + 1;
+                }
+                idx++;
+            }
+            return sql.length();
+        }
+        if (sql.startsWith("--", pos)) {
+            int end = sql.indexOf('\n', pos);
+            return end < 0 ? sql.length() : end + 1;
+        }
+        if (sql.startsWith("/*", pos)) {
+            int end = sql.indexOf("*/", pos + 2);
+            return end < 0 ? sql.length() : end + 2;
+        }
+        return pos + 1;
+    }
+
+    private static String unquote(String quoted) {
+        char open = quoted.charAt(0);
+        var body = quoted.substring(1, quoted.length() - 1);
+        if (open == '[') {
+            return body;
+        }
+        var q = String.valueOf(open);
+        return body.replace(q + q, q);
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+}
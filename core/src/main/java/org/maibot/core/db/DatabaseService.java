@@ -24,7 +24,7 @@ import java.util.function.Function;
 @Component
 public class DatabaseService {
     private static final Logger log = LoggerFactory.getLogger(DatabaseService.class);
-    private static final Semver SUPPORT_VER = new Semver("0.1.0");
+    private static final Semver SUPPORT_VER = new Semver("0.2.0");
 
     private final TaskExecutorService taskExecutorService;
 
@@ -36,12 +36,16 @@ public class DatabaseService {
         this.init(conf);
     }
 
+    private static String jdbcUrl(MainConfig.LocalData.Database conf) {
+        return "jdbc:sqlite:" + conf.sqlitePath;
+    }
+
     private static PersistenceConfiguration getDbConfiguration(MainConfig.LocalData.Database conf) {
         var cfg = new PersistenceConfiguration("maibot-pu");
         // SQLite 配置
         // TODO: 对其他数据库的支持
         cfg.property("hibernate.connection.driver_class", "org.sqlite.JDBC");
-        cfg.property("hibernate.connection.url", "jdbc:sqlite:" + conf.sqlitePath);
+        cfg.property("hibernate.connection.url", jdbcUrl(conf));
         cfg.property("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect");
         cfg.property("hibernate.hbm2ddl.auto", "update");
         cfg.property("hibernate.c3p0.min_size", 1);
@@ -77,6 +81,9 @@ public class DatabaseService {
                 }
             }
 
+            // 将已有的数据库迁移到当前版本（需在Hibernate更新表结构之前）
+            DatabaseMigrator.migrate(jdbcUrl(conf), SUPPORT_VER);
+
             // 获取配置
             var cfg = getDbConfiguration(conf);
 
@@ -16,8 +16,9 @@ import java.util.List;
         indexes = {@Index(name = "idx_entity_group", columnList = "entity_id, group_id", unique = true)}
 )
 public class InteractionStream {
+    /// 压缩的交互流键：(群组或交互实体ID << 1) | 是否私聊
     @Id
-    private String id;
+    private Long id;
 
     @ManyToOne
     @JoinColumn(name = "entity_id", foreignKey = @ForeignKey(name = "FK_InteractionStream_InteractionEntity"))
@@ -27,6 +28,14 @@ public class InteractionStream {
     @JoinColumn(name = "group_id", foreignKey = @ForeignKey(name = "FK_InteractionStream_Group"))
     private InteractionGroup group;
 
+    /// 思维流状态码（见 ThinkingFlow.FlowState），为空时视为休眠
+    @Column(name = "state")
+    private Integer state;
+
+    /// 思维流上次活跃的时间戳（毫秒）
+    @Column(name = "last_active_at")
+    private Long lastActiveAt;
+
     @OneToMany(mappedBy = "stream", cascade = CascadeType.ALL)
     private List<Message> messages;
 
@@ -38,7 +47,14 @@ public class InteractionStream {
     @UpdateTimestamp
     private String updatedAt;
 
-    public static String idGen(Long id, boolean isPrivate) {
-        return (isPrivate ? "P-" : "G-") + id;
+    /**
+     * 生成交互流键
+     *
+     * @param id        群组或交互实体的ID
+     * @param isPrivate 是否为私聊流
+     * @return 交互流键
+     */
+    public static long idGen(long id, boolean isPrivate) {
+        return (id << 1) | (isPrivate ? 1L : 0L);
     }
 }
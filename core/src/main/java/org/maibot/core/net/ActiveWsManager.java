@@ -1,61 +1,296 @@
 package org.maibot.core.net;
 
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import lombok.Getter;
+import org.maibot.core.cdi.annotation.AutoInject;
 import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.cdi.annotation.Value;
+import org.maibot.core.config.MainConfig;
+import org.maibot.sdk.network.WsEnvelope;
+import org.maibot.sdk.network.WsEnvelopeCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class ActiveWsManager {
     private static final Logger log = LoggerFactory.getLogger(ActiveWsManager.class);
 
-    private final Map<String, ChannelHandlerContext> activeConnections = new ConcurrentHashMap<>();
+    /// 每个路径允许的最大并行连接数
+    private final int poolSize;
+    /// 默认的连接选择策略名称
+    private final String selectStrategy;
+    /// 每个连接出站队列的容量
+    @Getter
+    private final int outboundQueueCapacity;
+
+    private final Map<String, WsConnectionPool> activeConnections = new ConcurrentHashMap<>();
+
+    @AutoInject
+    public ActiveWsManager(@Value("${network}") MainConfig.Network conf) {
+        this.poolSize = Objects.requireNonNullElse(conf.wsPoolSize, 1);
+        this.selectStrategy = conf.wsSelectStrategy;
+        this.outboundQueueCapacity = Objects.requireNonNullElse(conf.wsOutboundQueueCapacity, 1024);
+        // 提前校验策略名称
+        WsConnectionSelector.of(this.selectStrategy);
+    }
+
+    private WsConnectionPool pool(String path) {
+        return activeConnections.computeIfAbsent(path, k -> new WsConnectionPool(k, poolSize, WsConnectionSelector.of(selectStrategy)));
+    }
 
     /**
      * 添加一个新的WebSocket连接
      * <p>
-     * - 当已有相同路径的连接存在时，拒绝新的连接请求<br>
+     * - 当相同路径的连接数已达上限时，拒绝新的连接请求<br>
      * - 若连接关闭，则自动从活动连接表中移除
      *
      * @param path 连接路径
      * @param ctx  连接的ChannelHandlerContext
+     * @return 是否接受了该连接
      */
-    public void addConnection(String path, ChannelHandlerContext ctx) {
-        var v = activeConnections.computeIfAbsent(path, k -> {
-            log.debug("PATH: {} 添加新的活动WebSocket连接", path);
-            ctx.channel().closeFuture().addListener(future -> {
-                activeConnections.remove(path);
-                log.debug("PATH: {} 的WebSocket连接已关闭，移除活动连接", path);
-            });
-            return ctx;
-        });
-
-        if (v != ctx) {
-            // 已有相同路径的连接存在，关闭新的连接请求
-            log.warn("已有PATH: {} 的WebSocket连接存在，拒绝新的连接请求", path);
+    public boolean addConnection(String path, ChannelHandlerContext ctx) {
+        var pool = pool(path);
+        if (!pool.add(ctx)) {
+            // 连接数已达上限，关闭新的连接请求
+            log.warn("PATH: {} 的WebSocket连接数已达上限（{}），拒绝新的连接请求", path, poolSize);
             ctx.close();
+            return false;
         }
+
+        log.debug("PATH: {} 添加新的活动WebSocket连接，当前连接数: {}", path, pool.getConnections().size());
+        ctx.channel().closeFuture().addListener(future -> {
+            pool.remove(ctx);
+            log.debug("PATH: {} 的WebSocket连接已关闭，移除活动连接，剩余连接数: {}", path, pool.getConnections().size());
+        });
+        return true;
     }
 
     /**
-     * 移除一个WebSocket连接
+     * 移除一个路径下的全部WebSocket连接（不关闭连接）
      *
      * @param path 连接路径
      */
     public void removeConnection(String path) {
-        activeConnections.remove(path);
+        var pool = activeConnections.get(path);
+        if (pool != null) {
+            pool.clear();
+        }
+    }
+
+    /**
+     * 为指定路径设置连接选择策略
+     *
+     * @param path     连接路径
+     * @param selector 选择策略
+     */
+    public void setSelector(String path, WsConnectionSelector selector) {
+        pool(path).setSelector(selector);
     }
 
     /**
      * 获取一个活动的WebSocket连接
      *
      * @param path 连接路径
-     * @return 连接的ChannelHandlerContext，若不存在则返回null
+     * @return 按选择策略选出的连接，若不存在则返回null
      */
     public ChannelHandlerContext getConnection(String path) {
-        return activeConnections.get(path);
+        return getConnection(path, WsConnectionSelector.NO_STREAM);
+    }
+
+    /**
+     * 获取一个活动的WebSocket连接
+     *
+     * @param path      连接路径
+     * @param streamKey 消息所属的交互流键（供sticky策略使用），不属于任何交互流时为 {@link WsConnectionSelector#NO_STREAM}
+     * @return 按选择策略选出的连接，若不存在则返回null
+     */
+    public ChannelHandlerContext getConnection(String path, long streamKey) {
+        var pool = activeConnections.get(path);
+        return pool == null ? null : pool.select(streamKey);
+    }
+
+    /**
+     * 获取一个路径下的全部活动连接
+     *
+     * @param path 连接路径
+     * @return 连接的不可变快照
+     */
+    public List<ChannelHandlerContext> getConnections(String path) {
+        var pool = activeConnections.get(path);
+        return pool == null ? List.of() : pool.getConnections();
+    }
+
+    /**
+     * 获取存在过连接的全部路径
+     *
+     * @return 路径集合的视图
+     */
+    public Set<String> getPaths() {
+        return activeConnections.keySet();
+    }
+
+    /**
+     * 经由指定路径的某个连接发送一帧
+     * <p>
+     * 帧进入所选连接的出站队列，由连接的事件循环合并写出；队列已满或无活动连接时丢弃
+     *
+     * @param path      连接路径
+     * @param streamKey 消息所属的交互流键，不属于任何交互流时为 {@link WsConnectionSelector#NO_STREAM}
+     * @param frame     待发送的帧（未被接受时由本方法释放）
+     * @return 是否已进入出站队列
+     */
+    public boolean send(String path, long streamKey, WebSocketFrame frame) {
+        var pool = activeConnections.get(path);
+        var ctx = pool == null ? null : pool.select(streamKey);
+        if (ctx == null) {
+            log.warn("PATH: {} 无活动的WebSocket连接，丢弃待发送的消息", path);
+            if (pool != null) {
+                pool.recordDropped();
+            }
+            frame.release();
+            return false;
+        }
+
+        var queue = WsOutboundQueue.of(ctx.channel());
+        if (queue == null) {
+            // 未安装出站队列的连接，直接经由Channel写出以穿过完整的处理链
+            ctx.channel().writeAndFlush(frame);
+            return true;
+        }
+        return queue.offer(frame);
+    }
+
+    /**
+     * 经由指定路径的某个连接发送一批二进制信封
+     * <p>
+     * 所有信封被编码进同一个二进制帧（见 {@link WsEnvelopeCodec}），对端路径需启用信封编解码器
+     *
+     * @param path      连接路径
+     * @param streamKey 消息所属的交互流键，不属于任何交互流时为 {@link WsConnectionSelector#NO_STREAM}
+     * @param envelopes 待发送的信封（由本方法释放）
+     * @return 是否已进入出站队列
+     */
+    public boolean send(String path, long streamKey, Collection<WsEnvelope> envelopes) {
+        BinaryWebSocketFrame frame;
+        try {
+            frame = WsEnvelopeCodec.encode(ByteBufAllocator.DEFAULT, envelopes);
+        } finally {
+            envelopes.forEach(WsEnvelope::release);
+        }
+        return send(path, streamKey, frame);
+    }
+
+    /**
+     * 经由指定路径的某个连接发送一帧
+     *
+     * @param path  连接路径
+     * @param frame 待发送的帧
+     * @return 是否已进入出站队列
+     */
+    public boolean send(String path, WebSocketFrame frame) {
+        return send(path, WsConnectionSelector.NO_STREAM, frame);
+    }
+
+    /**
+     * 指定路径下所有连接是否均处于背压状态（生产者应暂停发送）
+     *
+     * @param path 连接路径
+     */
+    public boolean isBackpressured(String path) {
+        for (var ctx : getConnections(path)) {
+            var queue = WsOutboundQueue.of(ctx.channel());
+            if (queue == null || queue.isWritable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 关闭全部WebSocket连接（服务关闭时调用）
+     * <p>
+     * 关闭帧（1001 Going Away）排在已入队的帧之后发送，由对端回应后断开连接
+     */
+    public void closeAll() {
+        for (var pool : activeConnections.values()) {
+            for (var ctx : pool.getConnections()) {
+                var frame = new CloseWebSocketFrame(WebSocketCloseStatus.ENDPOINT_UNAVAILABLE);
+                var queue = WsOutboundQueue.of(ctx.channel());
+                if (queue == null) {
+                    ctx.channel().writeAndFlush(frame);
+                } else {
+                    queue.close(frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * 出站统计
+     *
+     * @param connections 活动连接数
+     * @param pending     排队中的帧数
+     * @param queued      累计进入队列的帧数（仅统计活动连接）
+     * @param written     累计写出的帧数（仅统计活动连接）
+     * @param dropped     累计丢弃的帧数（活动连接的丢弃数 + 无可用连接时的丢弃数）
+     */
+    public record OutboundStats(int connections, long pending, long queued, long written, long dropped) {
+    }
+
+    /**
+     * 获取全部路径的出站统计
+     *
+     * @return 出站统计
+     */
+    public OutboundStats getOutboundStats() {
+        int connections = 0;
+        long pending = 0, queued = 0, written = 0, dropped = 0;
+        for (var path : activeConnections.keySet()) {
+            var stats = getOutboundStats(path);
+            connections += stats.connections();
+            pending += stats.pending();
+            queued += stats.queued();
+            written += stats.written();
+            dropped += stats.dropped();
+        }
+        return new OutboundStats(connections, pending, queued, written, dropped);
+    }
+
+    /**
+     * 获取指定路径的出站统计
+     *
+     * @param path 连接路径
+     * @return 出站统计
+     */
+    public OutboundStats getOutboundStats(String path) {
+        var pool = activeConnections.get(path);
+        if (pool == null) {
+            return new OutboundStats(0, 0, 0, 0, 0);
+        }
+
+        var connections = pool.getConnections();
+        long pending = 0, queued = 0, written = 0, dropped = pool.getDroppedCount();
+        for (var ctx : connections) {
+            var queue = WsOutboundQueue.of(ctx.channel());
+            if (queue != null) {
+                pending += queue.pending();
+                queued += queue.getQueuedCount();
+                written += queue.getWrittenCount();
+                dropped += queue.getDroppedCount();
+            }
+        }
+        return new OutboundStats(connections.size(), pending, queued, written, dropped);
     }
 }
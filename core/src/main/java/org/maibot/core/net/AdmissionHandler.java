@@ -0,0 +1,69 @@
+package org.maibot.core.net;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.timeout.IdleStateEvent;
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.cdi.annotation.Value;
+import org.maibot.core.config.MainConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 连接准入处理器
+ * <p>
+ * - 全局最大连接数：超出时直接关闭新连接<br>
+ * - 为新连接绑定其远端地址的限流令牌桶<br>
+ * - 回收空闲连接：收到 IdleStateHandler 的空闲事件时关闭连接（仅HTTP连接安装该检测）
+ */
+@Component
+@ChannelHandler.Sharable
+public class AdmissionHandler extends ChannelInboundHandlerAdapter {
+    private static final Logger log = LoggerFactory.getLogger(AdmissionHandler.class);
+
+    private final RateLimiter rateLimiter;
+    /// 最大连接数，0表示不限制
+    private final int maxConnections;
+    private final AtomicInteger activeConnections = new AtomicInteger();
+
+    @AutoInject
+    public AdmissionHandler(@Value("${network}") MainConfig.Network conf, RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.maxConnections = Objects.requireNonNullElse(conf.maxConnections, 0);
+    }
+
+    /// 当前的活动连接数
+    public int getActiveConnections() {
+        return activeConnections.get();
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        int active = activeConnections.incrementAndGet();
+        if (maxConnections > 0 && active > maxConnections) {
+            activeConnections.decrementAndGet();
+            log.warn("连接数已达上限（{}），拒绝来自 {} 的连接", maxConnections, ctx.channel().remoteAddress());
+            ctx.close();
+            return;
+        }
+        ctx.channel().closeFuture().addListener(future -> activeConnections.decrementAndGet());
+
+        rateLimiter.register(ctx.channel());
+        super.channelActive(ctx);
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof IdleStateEvent) {
+            log.debug("连接 {} 空闲超时，关闭连接", ctx.channel().remoteAddress());
+            ctx.close();
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+}
@@ -1,8 +1,9 @@
 package org.maibot.core.net;
 
+import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.http.*;
 import org.maibot.core.cdi.annotation.AutoInject;
 import org.maibot.core.cdi.annotation.Component;
@@ -11,40 +12,51 @@ import org.slf4j.LoggerFactory;
 
 @Component
 @ChannelHandler.Sharable
-public class DispatchHandler extends SimpleChannelInboundHandler<Object> {
+public class DispatchHandler extends ChannelDuplexHandler {
     private static final Logger log = LoggerFactory.getLogger(DispatchHandler.class);
 
-    private final HttpDispatchHandler httpDispatchHandler;
+    static final String HTTP_DISPATCHER_NAME = "httpDispatchHandler";
+
+    /// 一个响应（非1xx）已完整写出，向后续的HTTP分发器触发的事件
+    static final Object RESPONSE_WRITTEN = new Object();
+
     private final WsDispatchHandler wsDispatchHandler;
 
     @AutoInject
-    public DispatchHandler(HttpDispatchHandler httpDispatchHandler, WsDispatchHandler wsDispatchHandler) {
-        this.httpDispatchHandler = httpDispatchHandler;
+    public DispatchHandler(WsDispatchHandler wsDispatchHandler) {
         this.wsDispatchHandler = wsDispatchHandler;
     }
 
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
-        if (msg instanceof FullHttpRequest request) {
-            if (isWebSocketUpgrade(request)) {
-                // WebSocket升级请求
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof HttpRequest request) {
+            if (request instanceof FullHttpRequest fullRequest && isWebSocketUpgrade(fullRequest)) {
+                // WebSocket升级请求：直接安装对应路径的处理链，不再经由中间分发器
                 log.debug("收到WebSocket升级请求: URI：{}", request.uri());
-                ctx.pipeline().addBefore("exceptionHandler", "wsUpgradeHandler", wsDispatchHandler);
-            } else {
-                // 普通HTTP请求
-                log.debug("收到HTTP请求: METHOD: {}, URI: {}", request.method(), request.uri());
-                ctx.pipeline().addBefore("exceptionHandler", "httpDispatchHandler", httpDispatchHandler);
+                try {
+                    wsDispatchHandler.upgrade(ctx, fullRequest);
+                } finally {
+                    fullRequest.release();
+                }
+                return;
             }
-            ctx.fireChannelRead(request.retain());
-
-            // 对于Ws，由于后续数据均为WebSocket帧，分发器失去作用
-            // 对于Http，由于Http请求完成后即关闭连接，分发器不会二次利用
-            // 所以移除分发器
-            ctx.pipeline().remove(this);
-        } else {
-            // 其他消息类型
-            // TODO: 支持裸Socket
-            ctx.fireChannelRead(msg);
+            // 普通HTTP请求交由处理链中常驻的HTTP分发器，Keep-Alive连接上的后续请求（含流水线请求）复用该分发器
+            log.debug("收到HTTP请求: METHOD: {}, URI: {}", request.method(), request.uri());
+        }
+        // 流式路由的请求体分块等其他消息原样透传；裸TCP连接由协议嗅探器分流，不经过此分发器
+        ctx.fireChannelRead(msg);
+    }
+
+    /**
+     * 响应的最后一部分写出时通知HTTP分发器（用于在流式请求的响应完成前暂存流水线上的后续请求）
+     */
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        boolean completesResponse = msg instanceof LastHttpContent
+                && !(msg instanceof HttpResponse resp && resp.status().codeClass() == HttpStatusClass.INFORMATIONAL);
+        ctx.write(msg, promise);
+        if (completesResponse) {
+            ctx.fireUserEventTriggered(RESPONSE_WRITTEN);
         }
     }
 
@@ -53,4 +65,4 @@ public class DispatchHandler extends SimpleChannelInboundHandler<Object> {
                 && request.headers().contains(HttpHeaderNames.UPGRADE, HttpHeaderValues.WEBSOCKET, true)
                 && request.headers().contains(HttpHeaderNames.CONNECTION, HttpHeaderValues.UPGRADE, true);
     }
-}
\ No newline at end of file
+}
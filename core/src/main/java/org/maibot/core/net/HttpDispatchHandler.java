@@ -2,69 +2,455 @@ package org.maibot.core.net;
 
 import io.netty.channel.*;
 import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.util.AttributeKey;
+import io.netty.util.ReferenceCountUtil;
+import org.maibot.core.cdi.annotation.AutoInject;
 import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.net.http.MetricsHandler;
 import org.maibot.core.net.http.PingPongHandler;
+import org.maibot.core.util.TaskExecutorService;
+import org.maibot.sdk.network.AsyncHttpRequestProcessor;
+import org.maibot.sdk.network.HttpProcessor;
 import org.maibot.sdk.network.HttpRequestProcessor;
+import org.maibot.sdk.network.ReadPause;
+import org.maibot.sdk.network.StreamingHttpRequestProcessor;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.channels.ClosedChannelException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 @ChannelHandler.Sharable
-public class HttpDispatchHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+public class HttpDispatchHandler extends SimpleChannelInboundHandler<HttpObject> {
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(HttpDispatchHandler.class);
 
-    private final Map<String, HttpRequestProcessor> processors = new HashMap<>();
+    /// 当前连接上正在接收请求体的流式请求
+    private static final AttributeKey<StreamingHttpRequestProcessor.BodyReceiver> STREAMING_RECEIVER =
+            AttributeKey.valueOf(HttpDispatchHandler.class, "streamingReceiver");
 
-    public HttpDispatchHandler() {
+    /// 聚合器判断流式路由时记录的匹配结果
+    private static final AttributeKey<StreamingRoute> STREAMING_ROUTE =
+            AttributeKey.valueOf(HttpDispatchHandler.class, "streamingRoute");
+
+    private record StreamingRoute(HttpRequest req, HttpRouter.Match match) {
+    }
+
+    /// 当前连接上异步请求的排队状态
+    private static final AttributeKey<AsyncState> ASYNC_STATE =
+            AttributeKey.valueOf(HttpDispatchHandler.class, "asyncState");
+
+    /**
+     * 连接上的异步请求状态（仅在连接所属的事件循环上访问）
+     * <p>
+     * 异步请求处理期间、流式请求的请求体接收完毕至其响应写出之前，同一连接上后续到达的消息暂存于此，
+     * 待其完成后按序处理，以保证流水线请求的响应顺序
+     */
+    private static final class AsyncState {
+        private boolean inFlight = false;
+        private final Deque<HttpObject> pending = new ArrayDeque<>();
+        /// 当前流式请求的响应已在请求体接收完毕前写出（如提前拒绝）
+        private boolean streamingResponded = false;
+        /// 流式请求的请求体已接收完毕，等待其响应写出
+        private boolean awaitingStreamingResponse = false;
+    }
+
+    private static AsyncState stateOf(ChannelHandlerContext ctx) {
+        var state = ctx.channel().attr(ASYNC_STATE).get();
+        if (state == null) {
+            state = new AsyncState();
+            ctx.channel().attr(ASYNC_STATE).set(state);
+        }
+        return state;
+    }
+
+    private final TaskExecutorService taskExecutorService;
+    private final RateLimiter rateLimiter;
+    private final NetworkMetrics networkMetrics;
+
+    /// 进行中的异步请求与流式请求数
+    private final AtomicInteger inFlightRequests = new AtomicInteger();
+    /// 服务正在排空，新请求处理完毕后关闭连接
+    private volatile boolean draining = false;
+
+    /// 已注册的处理器（仅用于注册期检查覆盖与重建路由表）
+    private final Map<String, HttpProcessor> processors = new LinkedHashMap<>();
+
+    /// 预编译路由表，注册处理器时整体替换
+    private volatile HttpRouter router = HttpRouter.build(List.of());
+
+    @AutoInject
+    public HttpDispatchHandler(TaskExecutorService taskExecutorService, RateLimiter rateLimiter, NetworkMetrics networkMetrics) {
         super();
+        this.taskExecutorService = taskExecutorService;
+        this.rateLimiter = rateLimiter;
+        this.networkMetrics = networkMetrics;
 
         // 注册内置处理器
         registerProcessor(new PingPongHandler());
+        registerProcessor(new MetricsHandler(networkMetrics));
     }
 
-    public void registerProcessor(HttpRequestProcessor processor) {
+    public synchronized void registerProcessor(HttpProcessor processor) {
         var method = processor.getMethod().toString();
         var path = processor.getPath();
         var key = method + " " + path;
         if (processors.containsKey(key)) {
             log.warn("已有HTTP请求处理器注册，覆盖旧的请求处理器: METHOD: {}, PATH: {}", method, path);
         }
+        // 先以新的处理器集合构建路由表，路由模式非法时不影响已注册的处理器
+        var updated = new LinkedHashMap<>(processors);
+        updated.put(key, processor);
+        this.router = HttpRouter.build(updated.values());
         processors.put(key, processor);
         log.debug("注册HTTP请求处理器: METHOD: {}, PATH: {}", method, path);
     }
 
+    /**
+     * 请求是否命中流式路由（供 {@link RoutingHttpObjectAggregator} 判断是否跳过聚合）
+     * <p>
+     * 命中时记录匹配结果，分发该请求时直接复用，无需再次查找
+     *
+     * @param channel 请求所在的连接
+     * @param req     请求头
+     */
+    public boolean isStreamingRoute(Channel channel, HttpRequest req) {
+        var match = this.router.routeStreaming(req.method(), HttpRouter.pathOf(req.uri()));
+        if (match == null) {
+            return false;
+        }
+        channel.attr(STREAMING_ROUTE).set(new StreamingRoute(req, match));
+        return true;
+    }
+
+    /**
+     * 进入排空状态：此后收到的请求在响应后关闭连接
+     */
+    public void startDrain() {
+        this.draining = true;
+    }
+
+    /// 进行中的异步请求与流式请求数
+    public int getInFlightRequests() {
+        return inFlightRequests.get();
+    }
+
     @Override
-    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest req) throws Exception {
-        var method = req.method().toString();
-        var parser = new QueryStringDecoder(req.uri());
-        var path = parser.path();
-        var key = method + " " + path;
-        if (processors.containsKey(key)) {
+    protected void channelRead0(ChannelHandlerContext ctx, HttpObject msg) throws Exception {
+        var asyncState = ctx.channel().attr(ASYNC_STATE).get();
+        if (asyncState != null && asyncState.inFlight) {
+            // 有异步请求尚未完成，暂存消息（SimpleChannelInboundHandler 返回后会释放一次，此处需保留引用）
+            asyncState.pending.addLast(ReferenceCountUtil.retain(msg));
+            return;
+        }
+        handle(ctx, msg);
+        // 消息由 SimpleChannelInboundHandler 自动释放
+    }
+
+    private void handle(ChannelHandlerContext ctx, HttpObject msg) {
+        if (msg instanceof HttpRequest req && !rateLimiter.tryAcquire(ctx.channel())) {
+            // 超出远端地址的请求速率，流式请求的后续请求体因无接收者而被丢弃
+            log.warn("来自 {} 的HTTP请求超出速率限制，返回429", ctx.channel().remoteAddress());
+            networkMetrics.recordRateLimited();
+            var resp = new DefaultFullHttpResponse(req.protocolVersion(), HttpResponseStatus.TOO_MANY_REQUESTS);
+            resp.headers().set(HttpHeaderNames.RETRY_AFTER, 1);
+            HttpRequestProcessor.writeResponse(ctx, req, resp);
+            return;
+        }
+
+        if (draining && msg instanceof HttpRequest req) {
+            // 排空期间仍处理请求，但不再保持连接
+            HttpUtil.setKeepAlive(req, false);
+        }
+
+        if (msg instanceof FullHttpRequest req) {
+            dispatch(ctx, req);
+        } else if (msg instanceof HttpRequest req) {
+            dispatchStreaming(ctx, req);
+        } else if (msg instanceof HttpContent content) {
+            feedStreaming(ctx, content);
+        }
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        var receiver = ctx.channel().attr(STREAMING_RECEIVER).getAndSet(null);
+        if (receiver != null) {
+            inFlightRequests.decrementAndGet();
+            receiver.onAbort(new ClosedChannelException());
+        }
+        var asyncState = ctx.channel().attr(ASYNC_STATE).get();
+        if (asyncState != null) {
+            if (asyncState.awaitingStreamingResponse) {
+                asyncState.awaitingStreamingResponse = false;
+                inFlightRequests.decrementAndGet();
+            }
+            HttpObject msg;
+            while ((msg = asyncState.pending.pollFirst()) != null) {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+        super.channelInactive(ctx);
+    }
+
+    private void dispatch(ChannelHandlerContext ctx, FullHttpRequest req) {
+        var method = req.method();
+        var path = HttpRouter.pathOf(req.uri());
+        var match = this.router.route(method, path);
+        if (match.found()) {
             log.trace("找到 METHOD: {}, PATH: {} 的HTTP请求处理器，开始处理", method, path);
+            if (match.processor() instanceof AsyncHttpRequestProcessor processor) {
+                dispatchAsync(ctx, req, path, processor, match.pathParams());
+                return;
+            }
+            long start = System.nanoTime();
+            boolean error = false;
             try {
-                processors.get(key).process(ctx, req);
+                match.processor().process(ctx, req, match.pathParams());
             } catch (Exception e) {
+                error = true;
                 log.error("处理 METHOD: {}, PATH: {} 的HTTP请求时发生异常: {}", method, path, e.getMessage(), e);
-                var resp = new DefaultHttpResponse(
-                        req.protocolVersion(),
-                        HttpResponseStatus.INTERNAL_SERVER_ERROR
-                );
-
-                ctx.writeAndFlush(resp).addListener(ChannelFutureListener.CLOSE);
-            } finally {
-                req.release();
+                sendError(ctx, req, HttpResponseStatus.INTERNAL_SERVER_ERROR);
             }
+            networkMetrics.recordRequest(match.processor(), System.nanoTime() - start, error);
+        } else if (match.methodNotAllowed()) {
+            networkMetrics.recordUnmatched();
+            log.warn("PATH: {} 不支持 METHOD: {}，返回405", path, method);
+            var resp = new DefaultFullHttpResponse(req.protocolVersion(), HttpResponseStatus.METHOD_NOT_ALLOWED);
+            resp.headers().set(HttpHeaderNames.ALLOW, match.allowedMethods());
+            HttpRequestProcessor.writeResponse(ctx, req, resp);
         } else {
             log.warn("未找到 METHOD:{}, PATH: {} 的HTTP请求处理器，返回404", method, path);
-            var resp = new DefaultHttpResponse(
-                    req.protocolVersion(),
-                    HttpResponseStatus.NOT_FOUND
-            );
+            networkMetrics.recordUnmatched();
+            sendError(ctx, req, HttpResponseStatus.NOT_FOUND);
+        }
+    }
 
+    /**
+     * 在虚拟线程上异步处理请求，完成后切回连接的事件循环写出响应
+     * <p>
+     * 处理期间暂停读取并暂存同一连接上的后续消息；超时后返回504、关闭连接并取消处理，迟到的响应将被丢弃。<br>
+     * 请求的释放与后续消息的处理总在处理真正结束后进行，避免处理过程读到已释放的请求
+     */
+    private void dispatchAsync(ChannelHandlerContext ctx, FullHttpRequest req, String path, AsyncHttpRequestProcessor processor, Map<String, String> pathParams) {
+        var asyncState = stateOf(ctx);
+        asyncState.inFlight = true;
+        inFlightRequests.incrementAndGet();
+        ReadPause.pause(ctx.channel(), asyncState);
+
+        // 请求需在异步处理完成前保持有效
+        req.retain();
+        var method = req.method();
+        var completed = new AtomicBoolean(false);
+        long start = System.nanoTime();
+
+        CompletionStage<HttpResponse> stage;
+        try {
+            stage = processor.handleRequestAsync(req, pathParams, this.taskExecutorService.getVirtualExecutor());
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+
+        var handling = stage;
+        var timeoutTask = ctx.executor().schedule(() -> {
+            if (!completed.compareAndSet(false, true)) {
+                return;
+            }
+            log.warn("处理 METHOD: {}, PATH: {} 的HTTP请求超时（{}ms），返回504并关闭连接", method, path, processor.getTimeout().toMillis());
+            networkMetrics.recordRequest(processor, System.nanoTime() - start, true);
+            // 处理过程可能不响应中断而一直占用请求，不能在其结束前继续处理该连接上的后续请求，因此关闭连接；
+            // 请求仍在处理结束（whenComplete）后才释放，暂存的后续消息随连接关闭释放
+            var resp = new DefaultFullHttpResponse(req.protocolVersion(), HttpResponseStatus.GATEWAY_TIMEOUT);
+            HttpUtil.setContentLength(resp, 0);
+            HttpUtil.setKeepAlive(resp, false);
             ctx.writeAndFlush(resp).addListener(ChannelFutureListener.CLOSE);
-            req.release();
+            try {
+                handling.toCompletableFuture().cancel(true);
+            } catch (UnsupportedOperationException ignored) {
+                // 无法转换为CompletableFuture的结果不支持取消，等待其自行结束
+            }
+        }, processor.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+        stage.whenComplete((resp, err) -> {
+            timeoutTask.cancel(false);
+            try {
+                ctx.executor().execute(() -> completeAsync(ctx, req, path, processor, completed, start, resp, err));
+            } catch (RejectedExecutionException e) {
+                // 事件循环已关闭，连接不再可用
+                ReferenceCountUtil.release(resp);
+                req.release();
+                inFlightRequests.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 异步处理结束（在连接的事件循环上执行，每个请求恰好一次）：未超时则写出响应，随后释放请求并继续处理暂存的消息
+     */
+    private void completeAsync(ChannelHandlerContext ctx, FullHttpRequest req, String path, AsyncHttpRequestProcessor processor,
+                               AtomicBoolean completed, long start, HttpResponse resp, Throwable err) {
+        if (!completed.compareAndSet(false, true)) {
+            // 已超时，丢弃迟到的响应
+            ReferenceCountUtil.release(resp);
+            finishAsync(ctx, req);
+            return;
+        }
+        networkMetrics.recordRequest(processor, System.nanoTime() - start, err != null);
+
+        if (err != null) {
+            var cause = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+            log.error("处理 METHOD: {}, PATH: {} 的HTTP请求时发生异常: {}", req.method(), path, cause.getMessage(), cause);
+            sendError(ctx, req, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+        } else if (resp == null) {
+            log.trace("无响应数据");
+        } else {
+            log.trace("发送响应 {}", resp.status().code());
+            HttpRequestProcessor.writeResponse(ctx, req, resp);
+        }
+        finishAsync(ctx, req);
+    }
+
+    /**
+     * 异步请求结束：释放请求，按序处理暂存的消息，恢复读取
+     */
+    private void finishAsync(ChannelHandlerContext ctx, FullHttpRequest req) {
+        req.release();
+        inFlightRequests.decrementAndGet();
+        drainPending(ctx, ctx.channel().attr(ASYNC_STATE).get());
+    }
+
+    /**
+     * 当前请求结束：按序处理暂存的消息，期间再次出现进行中的请求时停止，否则恢复读取
+     */
+    private void drainPending(ChannelHandlerContext ctx, AsyncState asyncState) {
+        asyncState.inFlight = false;
+        HttpObject msg;
+        while (!asyncState.inFlight && (msg = asyncState.pending.pollFirst()) != null) {
+            try {
+                handle(ctx, msg);
+            } finally {
+                ReferenceCountUtil.release(msg);
+            }
         }
+        if (!asyncState.inFlight) {
+            ReadPause.resume(ctx.channel(), asyncState);
+        }
+    }
+
+    /**
+     * 处理流式路由的请求头
+     */
+    private void dispatchStreaming(ChannelHandlerContext ctx, HttpRequest req) {
+        var method = req.method();
+        var path = HttpRouter.pathOf(req.uri());
+        var cached = ctx.channel().attr(STREAMING_ROUTE).getAndSet(null);
+        // 流水线上的请求可能在前一请求分发前已被聚合器判断，此时记录的不是本请求的结果
+        var match = cached != null && cached.req() == req ? cached.match() : this.router.route(method, path);
+        if (!(match.processor() instanceof StreamingHttpRequestProcessor processor)) {
+            // 聚合器仅放行流式路由，理论上不会到达此处
+            log.warn("METHOD: {}, PATH: {} 不是流式路由，丢弃未聚合的请求", method, path);
+            sendError(ctx, req, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            return;
+        }
+
+        log.trace("找到 METHOD: {}, PATH: {} 的流式HTTP请求处理器，开始接收请求体", method, path);
+        if (HttpUtil.is100ContinueExpected(req)) {
+            // 请求未经过聚合器，需自行响应 100-continue
+            ctx.writeAndFlush(new DefaultFullHttpResponse(req.protocolVersion(), HttpResponseStatus.CONTINUE));
+        }
+        try {
+            var receiver = processor.onRequest(ctx, req, match.pathParams());
+            if (receiver != null) {
+                inFlightRequests.incrementAndGet();
+                stateOf(ctx).streamingResponded = false;
+                ctx.channel().attr(STREAMING_RECEIVER).set(receiver);
+            }
+        } catch (Exception e) {
+            log.error("处理 METHOD: {}, PATH: {} 的流式HTTP请求时发生异常: {}", method, path, e.getMessage(), e);
+            sendError(ctx, req, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 将请求体分块交付给当前的流式请求
+     */
+    private void feedStreaming(ChannelHandlerContext ctx, HttpContent content) {
+        var attr = ctx.channel().attr(STREAMING_RECEIVER);
+        var receiver = attr.get();
+        if (receiver == null) {
+            // 流式请求已被拒绝或处理失败，丢弃剩余的请求体
+            return;
+        }
+
+        try {
+            if (content.content().isReadable()) {
+                receiver.onContent(ctx, content.content());
+            }
+            if (content instanceof LastHttpContent last) {
+                attr.set(null);
+                var asyncState = stateOf(ctx);
+                // HTTP/2的每个流只承载一个请求，无需排序；HTTP/1.1在响应写出前暂停读取并暂存流水线上的后续请求
+                if (!asyncState.streamingResponded && !(ctx.channel() instanceof Http2StreamChannel)) {
+                    asyncState.inFlight = true;
+                    asyncState.awaitingStreamingResponse = true;
+                    ReadPause.pause(ctx.channel(), asyncState);
+                } else {
+                    inFlightRequests.decrementAndGet();
+                }
+                receiver.onComplete(ctx, last.trailingHeaders());
+            }
+        } catch (Exception e) {
+            log.error("接收流式HTTP请求体时发生异常: {}", e.getMessage(), e);
+            if (attr.getAndSet(null) != null) {
+                inFlightRequests.decrementAndGet();
+            }
+            receiver.onAbort(e);
+            ctx.close();
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt == DispatchHandler.RESPONSE_WRITTEN) {
+            onResponseWritten(ctx);
+            return;
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    /**
+     * 一个响应已完整写出：结束等待响应的流式请求，或记录正在接收请求体的流式请求已提前响应
+     */
+    private void onResponseWritten(ChannelHandlerContext ctx) {
+        var asyncState = ctx.channel().attr(ASYNC_STATE).get();
+        if (asyncState == null) {
+            return;
+        }
+        if (asyncState.awaitingStreamingResponse) {
+            asyncState.awaitingStreamingResponse = false;
+            inFlightRequests.decrementAndGet();
+            drainPending(ctx, asyncState);
+        } else if (ctx.channel().attr(STREAMING_RECEIVER).get() != null) {
+            asyncState.streamingResponded = true;
+        }
+    }
+
+    /**
+     * 发送无响应体的错误响应（遵循请求的Keep-Alive语义）
+     *
+     * @param ctx    连接的ChannelHandlerContext
+     * @param req    对应的请求
+     * @param status 响应状态
+     */
+    static void sendError(ChannelHandlerContext ctx, HttpRequest req, HttpResponseStatus status) {
+        var resp = new DefaultFullHttpResponse(req.protocolVersion(), status);
+        HttpRequestProcessor.writeResponse(ctx, req, resp);
     }
 }
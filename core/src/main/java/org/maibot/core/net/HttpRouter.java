@@ -0,0 +1,325 @@
+package org.maibot.core.net;
+
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import org.maibot.sdk.network.HttpProcessor;
+import org.maibot.sdk.network.StreamingHttpRequestProcessor;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 预编译的HTTP路由表（不可变）
+ * <p>
+ * 以路径段为键的前缀树（思路同 {@link org.maibot.core.util.PrefixTreeMap}），每个节点持有 METHOD → 处理器 的映射。<br>
+ * 支持的路径段：
+ * <p>
+ * - 静态段：<code>/api/ping</code><br>
+ * - 参数段：<code>/stream/{id}</code>，匹配任意非空的单个路径段<br>
+ * - 通配段：<code>/files/*</code>，只能位于末尾，匹配剩余的全部路径（以 <code>*</code> 为键放入路径参数）
+ * <p>
+ * 匹配优先级为 静态 > 参数 > 通配，失败时回溯。<br>
+ * 查找过程不拼接字符串、不切分路径，仅在命中带参数的路由时才为参数值分配内存。
+ * 路由表构建后不可修改，新增处理器时需重新构建。
+ */
+public final class HttpRouter {
+    private static final String WILDCARD = "*";
+
+    /**
+     * 路由匹配结果
+     *
+     * @param processor      命中的处理器，未命中时为null
+     * @param pathParams     路径参数（不可变）
+     * @param allowedMethods 路径存在但METHOD不匹配时，该路径允许的METHOD列表（用于 Allow 响应头）
+     */
+    public record Match(HttpProcessor processor, Map<String, String> pathParams, String allowedMethods) {
+        public boolean found() {
+            return processor != null;
+        }
+
+        public boolean methodNotAllowed() {
+            return processor == null && allowedMethods != null;
+        }
+    }
+
+    public static final Match NOT_FOUND = new Match(null, Map.of(), null);
+
+    /**
+     * 路由树节点（构建完成后不可变）
+     */
+    private static final class Node {
+        private final String[] staticKeys;
+        private final Node[] staticChildren;
+        private final Node paramChild;
+        private final Node wildcardChild;
+
+        /// 根节点到当前节点每一段对应的参数名（静态段为null），用于命中后提取参数
+        private final String[] segmentParams;
+        private final boolean hasParams;
+
+        /// 无路径参数时预先构造的匹配结果，命中时直接复用
+        private final Map<HttpMethod, Match> matches;
+        private final Map<HttpMethod, HttpProcessor> handlers;
+        private final Match methodNotAllowed;
+
+        private Node(Builder.MutableNode src) {
+            var keys = new ArrayList<>(src.staticChildren.keySet());
+            this.staticKeys = keys.toArray(String[]::new);
+            this.staticChildren = new Node[keys.size()];
+            for (int idx = 0; idx < keys.size(); idx++) {
+                this.staticChildren[idx] = new Node(src.staticChildren.get(keys.get(idx)));
+            }
+            this.paramChild = src.paramChild == null ? null : new Node(src.paramChild);
+            this.wildcardChild = src.wildcardChild == null ? null : new Node(src.wildcardChild);
+
+            this.segmentParams = src.segmentParams.toArray(String[]::new);
+            this.hasParams = src.segmentParams.stream().anyMatch(Objects::nonNull);
+
+            this.handlers = Map.copyOf(src.handlers);
+            var matches = new HashMap<HttpMethod, Match>();
+            src.handlers.forEach((method, processor) -> matches.put(method, new Match(processor, Map.of(), null)));
+            this.matches = Map.copyOf(matches);
+
+            this.methodNotAllowed = src.handlers.isEmpty() ? null : new Match(
+                    null,
+                    Map.of(),
+                    src.handlers.keySet().stream().map(HttpMethod::name).sorted().collect(Collectors.joining(", "))
+            );
+        }
+    }
+
+    private final Node root;
+    /// 是否包含流式路由（不包含时可跳过流式路由判断）
+    private final boolean hasStreamingRoutes;
+
+    private HttpRouter(Node root, boolean hasStreamingRoutes) {
+        this.root = root;
+        this.hasStreamingRoutes = hasStreamingRoutes;
+    }
+
+    /**
+     * 根据处理器集合构建路由表
+     *
+     * @param processors 处理器集合
+     * @return 路由表
+     * @throws IllegalArgumentException 路由模式非法或同一位置的参数名冲突时
+     */
+    public static HttpRouter build(Collection<HttpProcessor> processors) {
+        var builder = new Builder();
+        for (var processor : processors) {
+            builder.add(processor);
+        }
+        return builder.build();
+    }
+
+    /**
+     * 查找路由
+     *
+     * @param method 请求METHOD
+     * @param path   请求路径（已去除查询串）
+     * @return 匹配结果；路径不存在时返回 {@link #NOT_FOUND}
+     */
+    public Match route(HttpMethod method, String path) {
+        int start = firstSegmentStart(path);
+
+        var node = find(root, path, start, method);
+        if (node != null) {
+            if (!node.hasParams) {
+                return node.matches.get(method);
+            }
+            return new Match(node.handlers.get(method), extractParams(node, path, start), null);
+        }
+
+        // 冷路径：判断是否为METHOD不匹配
+        node = find(root, path, start, null);
+        return node == null ? NOT_FOUND : node.methodNotAllowed;
+    }
+
+    /**
+     * 查找流式路由
+     * <p>
+     * 未命中流式路由时不提取路径参数，不分配内存
+     *
+     * @param method 请求METHOD
+     * @param path   请求路径（已去除查询串）
+     * @return 命中流式路由时返回匹配结果，否则返回null
+     */
+    public Match routeStreaming(HttpMethod method, String path) {
+        if (!hasStreamingRoutes) {
+            return null;
+        }
+        int start = firstSegmentStart(path);
+        var node = find(root, path, start, method);
+        if (node == null || !(node.handlers.get(method) instanceof StreamingHttpRequestProcessor)) {
+            return null;
+        }
+        if (!node.hasParams) {
+            return node.matches.get(method);
+        }
+        return new Match(node.handlers.get(method), extractParams(node, path, start), null);
+    }
+
+    /**
+     * 从请求URI中取出路径部分
+     * <p>
+     * 不含查询串且无需解码时直接返回原字符串
+     *
+     * @param uri 请求URI
+     * @return 解码后的路径
+     */
+    public static String pathOf(String uri) {
+        int queryIdx = uri.indexOf('?');
+        if (uri.indexOf('%') < 0) {
+            return queryIdx < 0 ? uri : uri.substring(0, queryIdx);
+        }
+        return new QueryStringDecoder(uri).path();
+    }
+
+    private static int firstSegmentStart(String path) {
+        // 根路径 "/" 没有任何路径段，直接视为已消费完毕
+        return path.length() <= 1 ? path.length() + 1 : 1;
+    }
+
+    /**
+     * 深度优先查找路由节点
+     *
+     * @param node   当前节点
+     * @param path   请求路径
+     * @param start  当前路径段起始下标，大于路径长度时表示路径已消费完毕
+     * @param method 请求METHOD，为null时只要节点上存在任意处理器即视为命中
+     * @return 命中的节点，未命中返回null
+     */
+    private static Node find(Node node, String path, int start, HttpMethod method) {
+        int len = path.length();
+        if (start > len) {
+            return accepts(node, method) ? node : null;
+        }
+
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = len;
+        }
+        int segLen = end - start;
+
+        // 静态段
+        var keys = node.staticKeys;
+        for (int idx = 0; idx < keys.length; idx++) {
+            var key = keys[idx];
+            if (key.length() == segLen && path.regionMatches(start, key, 0, segLen)) {
+                var found = find(node.staticChildren[idx], path, end + 1, method);
+                if (found != null) {
+                    return found;
+                }
+                break;
+            }
+        }
+
+        // 参数段（不匹配空段）
+        if (node.paramChild != null && segLen > 0) {
+            var found = find(node.paramChild, path, end + 1, method);
+            if (found != null) {
+                return found;
+            }
+        }
+
+        // 通配段
+        if (node.wildcardChild != null && accepts(node.wildcardChild, method)) {
+            return node.wildcardChild;
+        }
+        return null;
+    }
+
+    private static boolean accepts(Node node, HttpMethod method) {
+        return method == null ? !node.handlers.isEmpty() : node.handlers.containsKey(method);
+    }
+
+    private static Map<String, String> extractParams(Node node, String path, int start) {
+        var names = node.segmentParams;
+        var params = new HashMap<String, String>(names.length * 2);
+        int len = path.length();
+        for (var name : names) {
+            if (WILDCARD.equals(name)) {
+                params.put(WILDCARD, start > len ? "" : path.substring(start));
+                break;
+            }
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = len;
+            }
+            if (name != null) {
+                params.put(name, path.substring(start, end));
+            }
+            start = end + 1;
+        }
+        return Collections.unmodifiableMap(params);
+    }
+
+    /**
+     * 路由表构建器
+     */
+    private static final class Builder {
+        private static final class MutableNode {
+            private final Map<String, MutableNode> staticChildren = new LinkedHashMap<>();
+            private MutableNode paramChild = null;
+            private String paramName = null;
+            private MutableNode wildcardChild = null;
+
+            private final List<String> segmentParams;
+            private final Map<HttpMethod, HttpProcessor> handlers = new HashMap<>();
+
+            private MutableNode(List<String> segmentParams) {
+                this.segmentParams = segmentParams;
+            }
+
+            private MutableNode child(String param) {
+                var params = new ArrayList<>(this.segmentParams);
+                params.add(param);
+                return new MutableNode(params);
+            }
+        }
+
+        private final MutableNode root = new MutableNode(List.of());
+        private boolean hasStreamingRoutes = false;
+
+        private void add(HttpProcessor processor) {
+            var pattern = processor.getPath();
+            if (pattern == null || !pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Route pattern must start with '/': " + pattern);
+            }
+
+            var node = root;
+            var segments = pattern.length() == 1 ? new String[0] : pattern.substring(1).split("/", -1);
+            for (int idx = 0; idx < segments.length; idx++) {
+                var segment = segments[idx];
+                if (segment.equals(WILDCARD)) {
+                    if (idx != segments.length - 1) {
+                        throw new IllegalArgumentException("Wildcard must be the last segment: " + pattern);
+                    }
+                    if (node.wildcardChild == null) {
+                        node.wildcardChild = node.child(WILDCARD);
+                    }
+                    node = node.wildcardChild;
+                } else if (segment.length() > 2 && segment.startsWith("{") && segment.endsWith("}")) {
+                    var name = segment.substring(1, segment.length() - 1);
+                    if (node.paramChild == null) {
+                        node.paramChild = node.child(name);
+                        node.paramName = name;
+                    } else if (!node.paramName.equals(name)) {
+                        throw new IllegalArgumentException("Conflicting path parameter name '" + name
+                                + "' (already registered as '" + node.paramName + "') in route: " + pattern);
+                    }
+                    node = node.paramChild;
+                } else {
+                    var parent = node;
+                    node = parent.staticChildren.computeIfAbsent(segment, k -> parent.child(null));
+                }
+            }
+            node.handlers.put(processor.getMethod(), processor);
+            this.hasStreamingRoutes |= processor instanceof StreamingHttpRequestProcessor;
+        }
+
+        private HttpRouter build() {
+            return new HttpRouter(new Node(root), hasStreamingRoutes);
+        }
+    }
+}
@@ -1,34 +1,91 @@
 package org.maibot.core.net;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.*;
-import io.netty.channel.nio.NioIoHandler;
 import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.handler.codec.LengthFieldPrepender;
 import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpServerUpgradeHandler;
+import io.netty.handler.codec.http2.*;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.util.AsciiString;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import org.maibot.core.config.MainConfig;
 import org.maibot.core.cdi.annotation.AutoInject;
 import org.maibot.core.cdi.annotation.Component;
 import org.maibot.core.cdi.annotation.Value;
-import org.maibot.core.util.TaskExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class InnerServer {
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(InnerServer.class);
 
+    /// HTTP消息的最大长度（5MB）
+    private static final int MAX_HTTP_CONTENT_LENGTH = 1024 * 1024 * 5;
+
+    /// 空闲连接检测处理器的名称（WebSocket与裸TCP连接建立后移除）
+    static final String IDLE_HANDLER_NAME = "idleStateHandler";
+
     private final ServerBootstrap bootstrap;
-    private final TaskExecutorService taskExecutorService;
+    private final Transport transport;
+    private final int workerThreads;
+    private final int acceptorCount;
+
+    /// 已绑定的服务端Channel（开启SO_REUSEPORT时每个Acceptor一个）
+    private final List<Channel> serverChannels = new CopyOnWriteArrayList<>();
+
+    private final HttpDispatchHandler httpDispatchHandler;
+    private final ActiveWsManager activeWsManager;
+    private final NetworkMetrics networkMetrics;
+    /// 关闭时等待进行中的请求与出站队列完成的最长时间
+    private final Duration drainTimeout;
+    private boolean shutdown = false;
 
     private IoEventLoopGroup bossGroup;
     private IoEventLoopGroup workerGroup;
 
     @AutoInject
-    public InnerServer(@Value("${network}") MainConfig.Network conf, TaskExecutorService taskExecutorService, DispatchHandler dispatchHandler, ExceptionHandler exceptionHandler) {
+    public InnerServer(
+            @Value("${network}") MainConfig.Network conf,
+            DispatchHandler dispatchHandler,
+            HttpDispatchHandler httpDispatchHandler,
+            RawDispatchHandler rawDispatchHandler,
+            AdmissionHandler admissionHandler,
+            ActiveWsManager activeWsManager,
+            NetworkMetrics networkMetrics,
+            ExceptionHandler exceptionHandler
+    ) {
+        this.networkMetrics = networkMetrics;
+        this.httpDispatchHandler = httpDispatchHandler;
+        this.activeWsManager = activeWsManager;
+        this.drainTimeout = Duration.ofSeconds(Objects.requireNonNullElse(conf.drainTimeout, 10));
+        this.transport = Transport.select(conf.transport);
+        this.workerThreads = Objects.requireNonNullElse(conf.workerThreads, Runtime.getRuntime().availableProcessors());
+
+        var acceptors = Objects.requireNonNullElse(conf.acceptorCount, 1);
+        if (acceptors > 1 && !transport.supportsReusePort()) {
+            log.warn("传输层 {} 不支持SO_REUSEPORT，Acceptor数量回退为1", transport);
+            acceptors = 1;
+        }
+        this.acceptorCount = acceptors;
+
+        var rawMaxFrameLength = Objects.requireNonNullElse(conf.rawMaxFrameLength, 1024 * 1024 * 5);
+        var idleTimeout = Objects.requireNonNullElse(conf.idleTimeout, 300);
+
         this.bootstrap = new ServerBootstrap();
-        bootstrap.channel(NioServerSocketChannel.class)
+        bootstrap.channel(transport.serverChannelClass())
+                // 使用池化的缓冲区分配器，SDK的响应构建工具同样使用池化分配
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .childHandler(
                         new ChannelInitializer<SocketChannel>() {
                             @Override
@@ -37,11 +94,20 @@ public class InnerServer {
 
                                 MDC.put("connId", Integer.toHexString(System.identityHashCode(ch)));
 
-                                // HTTP编解码器 与 HTTP消息聚合器（最大消息长度为5MB）
-                                pipeline.addLast("httpCodec", new HttpServerCodec());
-                                pipeline.addLast("httpAggregator", new HttpObjectAggregator(1024 * 1024 * 5));
-                                // 分发器
-                                pipeline.addLast("dispatcher", dispatchHandler);
+                                // 收发字节计数
+                                pipeline.addLast("trafficCounter", networkMetrics.getTrafficCounter());
+                                // 空闲连接检测 与 连接准入（最大连接数、限流令牌桶绑定、空闲回收）
+                                // 空闲回收仅针对HTTP连接，WebSocket与裸TCP等长连接的存活由应用层心跳判断
+                                if (idleTimeout > 0) {
+                                    pipeline.addLast(IDLE_HANDLER_NAME, new IdleStateHandler(0, 0, idleTimeout, TimeUnit.SECONDS));
+                                }
+                                pipeline.addLast("admissionHandler", admissionHandler);
+                                // 协议嗅探器：根据首个字节序列安装HTTP/1.1（含WebSocket、h2c升级）、HTTP/2或裸TCP处理链
+                                pipeline.addLast(ProtocolSniffer.NAME, new ProtocolSniffer(
+                                        p -> installHttpPipeline(p, dispatchHandler, httpDispatchHandler, exceptionHandler),
+                                        p -> installHttp2Pipeline(p, httpDispatchHandler, exceptionHandler),
+                                        p -> installRawPipeline(p, rawDispatchHandler, rawMaxFrameLength)
+                                ));
                                 // 异常处理兜底
                                 pipeline.addLast("exceptionHandler", exceptionHandler);
                             }
@@ -49,27 +115,136 @@ public class InnerServer {
                 )
                 .localAddress(conf.host, conf.port);
 
-        this.taskExecutorService = taskExecutorService;
+        if (this.acceptorCount > 1) {
+            transport.enableReusePort(bootstrap);
+        }
+    }
+
+    static void installHttpPipeline(
+            ChannelPipeline pipeline,
+            DispatchHandler dispatchHandler,
+            HttpDispatchHandler httpDispatchHandler,
+            ExceptionHandler exceptionHandler
+    ) {
+        // HTTP编解码器
+        var httpCodec = new HttpServerCodec();
+        pipeline.addBefore("exceptionHandler", "httpCodec", httpCodec);
+        // h2c升级处理器：仅处理 Upgrade: h2c 的请求，其余请求（含WebSocket升级）原样透传
+        pipeline.addBefore("exceptionHandler", "h2cUpgradeHandler", new HttpServerUpgradeHandler(
+                httpCodec,
+                protocol -> AsciiString.contentEquals(Http2CodecUtil.HTTP_UPGRADE_PROTOCOL_NAME, protocol)
+                        ? new Http2ServerUpgradeCodec(
+                        Http2FrameCodecBuilder.forServer().build(),
+                        new Http1HandlerRemover(),
+                        new Http2MultiplexHandler(new Http2StreamInitializer(httpDispatchHandler, exceptionHandler)))
+                        : null,
+                MAX_HTTP_CONTENT_LENGTH
+        ));
+        // HTTP消息聚合器（流式路由不聚合）
+        pipeline.addBefore("exceptionHandler", "httpAggregator", new RoutingHttpObjectAggregator(
+                MAX_HTTP_CONTENT_LENGTH,
+                httpDispatchHandler::isStreamingRoute
+        ));
+        // 分发器（识别WebSocket升级请求） 与 常驻的HTTP分发器，连接建立后无需再调整处理链
+        pipeline.addBefore("exceptionHandler", "dispatcher", dispatchHandler);
+        pipeline.addBefore("exceptionHandler", DispatchHandler.HTTP_DISPATCHER_NAME, httpDispatchHandler);
+    }
+
+    private static void installHttp2Pipeline(
+            ChannelPipeline pipeline,
+            HttpDispatchHandler httpDispatchHandler,
+            ExceptionHandler exceptionHandler
+    ) {
+        // HTTP/2连接：每个流对应一个子Channel，由子Channel的处理链完成请求处理
+        pipeline.addBefore("exceptionHandler", "http2FrameCodec", Http2FrameCodecBuilder.forServer().build());
+        pipeline.addBefore("exceptionHandler", "http2Multiplexer",
+                new Http2MultiplexHandler(new Http2StreamInitializer(httpDispatchHandler, exceptionHandler)));
+    }
+
+    /**
+     * HTTP/2流（子Channel）的处理链初始化器
+     * <p>
+     * 流帧被转换为HTTP/1.1消息对象，因此可直接复用HTTP路由与处理器
+     */
+    private static final class Http2StreamInitializer extends ChannelInitializer<Http2StreamChannel> {
+        private final HttpDispatchHandler httpDispatchHandler;
+        private final ExceptionHandler exceptionHandler;
+
+        private Http2StreamInitializer(HttpDispatchHandler httpDispatchHandler, ExceptionHandler exceptionHandler) {
+            this.httpDispatchHandler = httpDispatchHandler;
+            this.exceptionHandler = exceptionHandler;
+        }
+
+        @Override
+        protected void initChannel(Http2StreamChannel ch) {
+            ChannelPipeline pipeline = ch.pipeline();
+            pipeline.addLast("http2StreamCodec", new Http2StreamFrameToHttpObjectCodec(true));
+            // 流式写出（用于分块发送文件，避免将大文件读入内存）
+            pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
+            pipeline.addLast("httpAggregator", new RoutingHttpObjectAggregator(
+                    MAX_HTTP_CONTENT_LENGTH,
+                    httpDispatchHandler::isStreamingRoute
+            ));
+            pipeline.addLast("httpDispatchHandler", httpDispatchHandler);
+            pipeline.addLast("exceptionHandler", exceptionHandler);
+        }
+    }
+
+    /**
+     * h2c升级成功后移除父连接上残留的HTTP/1.1处理器（HTTP编解码器与升级处理器由升级流程自行移除）
+     */
+    private static final class Http1HandlerRemover extends ChannelHandlerAdapter {
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            var pipeline = ctx.pipeline();
+            for (var name : List.of("httpAggregator", "dispatcher", DispatchHandler.HTTP_DISPATCHER_NAME)) {
+                if (pipeline.get(name) != null) {
+                    pipeline.remove(name);
+                }
+            }
+            pipeline.remove(this);
+        }
+    }
+
+    private static void installRawPipeline(ChannelPipeline pipeline, RawDispatchHandler rawDispatchHandler, int maxFrameLength) {
+        // 裸TCP为长连接，不做空闲回收
+        if (pipeline.get(IDLE_HANDLER_NAME) != null) {
+            pipeline.remove(IDLE_HANDLER_NAME);
+        }
+        // 长度前缀帧：| length (int32) | payload |
+        pipeline.addBefore("exceptionHandler", "rawFrameDecoder", new LengthFieldBasedFrameDecoder(maxFrameLength, 0, 4, 0, 4));
+        pipeline.addBefore("exceptionHandler", "rawFrameEncoder", new LengthFieldPrepender(4));
+        // 分发器
+        pipeline.addBefore("exceptionHandler", "rawDispatcher", rawDispatchHandler);
     }
 
     public void run() {
         try {
-            // 使用线程池，创建一个单线程的bossGroup和多线程的workerGroup
+            // 使用独立的事件循环线程：每个Acceptor一个boss线程，worker线程数可配置
             this.bossGroup = new MultiThreadIoEventLoopGroup(
-                    1,
-                    this.taskExecutorService.getExecutor(),
-                    tae -> NioIoHandler.newFactory().newHandler(tae)
+                    this.acceptorCount,
+                    new DefaultThreadFactory("Net-Boss"),
+                    this.transport.ioHandlerFactory()
             );
 
             this.workerGroup = new MultiThreadIoEventLoopGroup(
-                    2,
-                    this.taskExecutorService.getExecutor(),
-                    tae -> NioIoHandler.newFactory().newHandler(tae)
+                    this.workerThreads,
+                    new DefaultThreadFactory("Net-Worker"),
+                    this.transport.ioHandlerFactory()
             );
             this.bootstrap.group(bossGroup, workerGroup);
-            var channelFuture = this.bootstrap.bind().sync();
-            log.info("网络服务启动成功，监听地址: {}", channelFuture.channel().localAddress());
-            channelFuture.channel().closeFuture().sync();
+            this.networkMetrics.monitor("Net-Worker", this.workerGroup);
+
+            // 开启SO_REUSEPORT时，多次绑定同一地址，由内核在各Acceptor间分配新连接
+            for (int idx = 0; idx < this.acceptorCount; idx++) {
+                this.serverChannels.add(this.bootstrap.bind().sync().channel());
+            }
+            log.info("网络服务启动成功，传输层: {}, Acceptor数: {}, Worker线程数: {}, 监听地址: {}",
+                    this.transport, this.acceptorCount, this.workerThreads, this.serverChannels.getFirst().localAddress());
+
+            for (var channel : this.serverChannels) {
+                channel.closeFuture().sync();
+            }
         } catch (InterruptedException e) {
             log.error("网络服务运行中断", e);
             Thread.currentThread().interrupt();
@@ -78,12 +253,58 @@ public class InnerServer {
         }
     }
 
-    public void shutdown() {
+    /**
+     * 排空并关闭网络服务
+     * <p>
+     * 1. 关闭监听，不再接受新连接<br>
+     * 2. 已有的HTTP连接在下一个响应后关闭，WebSocket连接在出站队列写完后发送关闭帧（1001）<br>
+     * 3. 等待进行中的HTTP请求与出站队列完成，至多等待 drain_timeout 秒，报告未完成的部分<br>
+     * 4. 关闭事件循环
+     */
+    public synchronized void shutdown() {
+        if (this.shutdown) {
+            return;
+        }
+        this.shutdown = true;
+
         try {
-            this.bossGroup.shutdownGracefully().sync();
-            this.workerGroup.shutdownGracefully().sync();
+            for (var channel : this.serverChannels) {
+                channel.close().syncUninterruptibly();
+            }
+            drain();
+
+            if (this.bossGroup != null) {
+                this.bossGroup.shutdownGracefully().sync();
+            }
+            if (this.workerGroup != null) {
+                this.workerGroup.shutdownGracefully().sync();
+            }
+        } catch (InterruptedException e) {
+            log.error("关闭网络服务时被中断", e);
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("关闭网络服务时发生错误", e);
         }
     }
+
+    private void drain() throws InterruptedException {
+        log.info("网络服务进入排空阶段，最长等待 {}ms", this.drainTimeout.toMillis());
+        this.httpDispatchHandler.startDrain();
+        this.activeWsManager.closeAll();
+
+        long deadline = System.nanoTime() + this.drainTimeout.toNanos();
+        while (true) {
+            int inFlight = this.httpDispatchHandler.getInFlightRequests();
+            long pending = this.activeWsManager.getOutboundStats().pending();
+            if (inFlight == 0 && pending == 0) {
+                log.info("网络服务排空完成");
+                return;
+            }
+            if (System.nanoTime() >= deadline) {
+                log.warn("排空超时，放弃 {} 个进行中的HTTP请求与 {} 个未发送的WebSocket帧", inFlight, pending);
+                return;
+            }
+            Thread.sleep(50);
+        }
+    }
 }
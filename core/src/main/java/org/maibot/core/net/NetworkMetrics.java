@@ -0,0 +1,259 @@
+package org.maibot.core.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.channel.*;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.util.MetricsRegistry;
+import org.maibot.sdk.network.HttpProcessor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.maibot.core.util.MetricsRegistry.escape;
+import static org.maibot.core.util.MetricsRegistry.header;
+import static org.maibot.core.util.MetricsRegistry.sample;
+
+/**
+ * 网络层指标
+ * <p>
+ * 记录路径均为无锁的计数器与HdrHistogram记录器，采集时（{@link #toPrometheus()}）才做汇总：<br>
+ * - 每个路由的请求数、错误数与处理延迟<br>
+ * - 收发字节数、活动连接数、每个WebSocket路径的连接数与出站队列<br>
+ * - 事件循环的任务队列长度与调度延迟（tick lag）<br>
+ * - 其他模块注册到 {@link MetricsRegistry} 的指标（如思维流执行通道）
+ */
+@Component
+public class NetworkMetrics {
+    /// 事件循环调度延迟的探测间隔
+    private static final long PROBE_INTERVAL_MILLIS = 100;
+
+    /// 单个路由的指标
+    private static final class RouteMetrics {
+        private final String method;
+        private final String route;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder latencySumMicros = new LongAdder();
+        private final Recorder recorder = new Recorder(3);
+        /// 上次采集以来的延迟分布（仅在采集时访问）
+        private Histogram interval;
+
+        private RouteMetrics(String method, String route) {
+            this.method = method;
+            this.route = route;
+        }
+
+        private void record(long nanos, boolean error) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+            count.increment();
+            latencySumMicros.add(micros);
+            recorder.recordValue(micros);
+            if (error) {
+                errors.increment();
+            }
+        }
+
+        private synchronized Histogram sample() {
+            interval = recorder.getIntervalHistogram(interval);
+            return interval;
+        }
+    }
+
+    /// 单个事件循环的调度延迟
+    private static final class LoopMetrics {
+        private final String name;
+        private final EventExecutor loop;
+        private volatile long lastLagNanos = 0;
+        /// 上次采集以来的最大延迟
+        private final AtomicLong maxLagNanos = new AtomicLong();
+
+        private LoopMetrics(String name, EventExecutor loop) {
+            this.name = name;
+            this.loop = loop;
+        }
+    }
+
+    private final ActiveWsManager activeWsManager;
+    private final AdmissionHandler admissionHandler;
+    private final MetricsRegistry metricsRegistry;
+
+    private final Map<HttpProcessor, RouteMetrics> routes = new ConcurrentHashMap<>();
+    private final RouteMetrics unmatched = new RouteMetrics("", "unmatched");
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final List<LoopMetrics> loops = new CopyOnWriteArrayList<>();
+
+    /// 收发字节计数处理器（所有连接共享）
+    private final ChannelHandler trafficCounter = new TrafficCounter();
+
+    @AutoInject
+    public NetworkMetrics(ActiveWsManager activeWsManager, AdmissionHandler admissionHandler, MetricsRegistry metricsRegistry) {
+        this.activeWsManager = activeWsManager;
+        this.admissionHandler = admissionHandler;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * 获取收发字节计数处理器，应安装在处理链的最前端
+     */
+    ChannelHandler getTrafficCounter() {
+        return trafficCounter;
+    }
+
+    /**
+     * 记录一个已路由请求的处理结果
+     *
+     * @param processor 处理器
+     * @param nanos     处理耗时（纳秒）
+     * @param error     是否以错误结束（异常或超时）
+     */
+    void recordRequest(HttpProcessor processor, long nanos, boolean error) {
+        routes.computeIfAbsent(processor, p -> new RouteMetrics(p.getMethod().name(), p.getPath())).record(nanos, error);
+    }
+
+    /// 记录一个未匹配任何路由的请求（404 / 405）
+    void recordUnmatched() {
+        unmatched.count.increment();
+    }
+
+    /// 记录一个因限流被拒绝的请求
+    void recordRateLimited() {
+        rateLimited.increment();
+    }
+
+    /**
+     * 开始监测事件循环组中每个事件循环的调度延迟
+     *
+     * @param name  事件循环组名称
+     * @param group 事件循环组
+     */
+    void monitor(String name, EventLoopGroup group) {
+        int idx = 0;
+        for (var executor : group) {
+            var loop = new LoopMetrics(name + "-" + idx++, executor);
+            loops.add(loop);
+            probe(loop, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MILLIS));
+        }
+    }
+
+    private void probe(LoopMetrics loop, long expectedNanos) {
+        if (loop.loop.isShuttingDown()) {
+            loops.remove(loop);
+            return;
+        }
+        loop.loop.schedule(() -> {
+            long lag = Math.max(0, System.nanoTime() - expectedNanos);
+            loop.lastLagNanos = lag;
+            loop.maxLagNanos.accumulateAndGet(lag, Math::max);
+            probe(loop, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PROBE_INTERVAL_MILLIS));
+        }, PROBE_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 以Prometheus文本格式导出全部指标
+     * <p>
+     * 延迟分位数与最大调度延迟统计的是上次采集以来的区间，计数类指标为累计值
+     *
+     * @return Prometheus文本
+     */
+    public String toPrometheus() {
+        var sb = new StringBuilder(4096);
+
+        header(sb, "maibot_http_requests_total", "counter", "Routed HTTP requests");
+        header(sb, "maibot_http_request_errors_total", "counter", "HTTP requests that failed or timed out");
+        header(sb, "maibot_http_request_duration_seconds", "summary", "HTTP request handling latency");
+        for (var metrics : routes.values()) {
+            writeRoute(sb, metrics);
+        }
+        writeRoute(sb, unmatched);
+
+        header(sb, "maibot_http_rate_limited_total", "counter", "HTTP requests rejected by the rate limiter");
+        sample(sb, "maibot_http_rate_limited_total", "", rateLimited.sum());
+
+        header(sb, "maibot_net_received_bytes_total", "counter", "Bytes received on all connections");
+        sample(sb, "maibot_net_received_bytes_total", "", bytesIn.sum());
+        header(sb, "maibot_net_sent_bytes_total", "counter", "Bytes sent on all connections");
+        sample(sb, "maibot_net_sent_bytes_total", "", bytesOut.sum());
+        header(sb, "maibot_net_connections", "gauge", "Active connections");
+        sample(sb, "maibot_net_connections", "", admissionHandler.getActiveConnections());
+
+        header(sb, "maibot_ws_connections", "gauge", "Active WebSocket connections per path");
+        header(sb, "maibot_ws_outbound_pending", "gauge", "Queued outbound WebSocket frames per path");
+        header(sb, "maibot_ws_outbound_dropped_total", "counter", "Dropped outbound WebSocket frames per path");
+        for (var path : activeWsManager.getPaths()) {
+            var stats = activeWsManager.getOutboundStats(path);
+            var labels = "path=\"" + escape(path) + "\"";
+            sample(sb, "maibot_ws_connections", labels, stats.connections());
+            sample(sb, "maibot_ws_outbound_pending", labels, stats.pending());
+            sample(sb, "maibot_ws_outbound_dropped_total", labels, stats.dropped());
+        }
+
+        header(sb, "maibot_event_loop_pending_tasks", "gauge", "Tasks waiting in the event loop queue");
+        header(sb, "maibot_event_loop_lag_seconds", "gauge", "Latest event loop scheduling lag");
+        header(sb, "maibot_event_loop_lag_max_seconds", "gauge", "Maximum event loop scheduling lag since the last scrape");
+        for (var loop : loops) {
+            var labels = "loop=\"" + loop.name + "\"";
+            if (loop.loop instanceof SingleThreadEventExecutor executor) {
+                sample(sb, "maibot_event_loop_pending_tasks", labels, executor.pendingTasks());
+            }
+            sample(sb, "maibot_event_loop_lag_seconds", labels, loop.lastLagNanos / 1e9);
+            sample(sb, "maibot_event_loop_lag_max_seconds", labels, loop.maxLagNanos.getAndSet(0) / 1e9);
+        }
+
+        metricsRegistry.writePrometheus(sb);
+
+        return sb.toString();
+    }
+
+    private static void writeRoute(StringBuilder sb, RouteMetrics metrics) {
+        var labels = "method=\"" + metrics.method + "\",route=\"" + escape(metrics.route) + "\"";
+        sample(sb, "maibot_http_requests_total", labels, metrics.count.sum());
+        sample(sb, "maibot_http_request_errors_total", labels, metrics.errors.sum());
+
+        var histogram = metrics.sample();
+        for (var quantile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            var value = histogram.getTotalCount() == 0 ? 0 : histogram.getValueAtPercentile(quantile * 100) / 1e6;
+            sample(sb, "maibot_http_request_duration_seconds", labels + ",quantile=\"" + quantile + "\"", value);
+        }
+        sample(sb, "maibot_http_request_duration_seconds_sum", labels, metrics.latencySumMicros.sum() / 1e6);
+        sample(sb, "maibot_http_request_duration_seconds_count", labels, metrics.count.sum());
+    }
+
+    /**
+     * 收发字节计数处理器
+     */
+    @ChannelHandler.Sharable
+    private final class TrafficCounter extends ChannelDuplexHandler {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof ByteBuf buf) {
+                bytesIn.add(buf.readableBytes());
+            }
+            super.channelRead(ctx, msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof ByteBuf buf) {
+                bytesOut.add(buf.readableBytes());
+            } else if (msg instanceof ByteBufHolder holder) {
+                bytesOut.add(holder.content().readableBytes());
+            } else if (msg instanceof FileRegion region) {
+                bytesOut.add(region.count() - region.transferred());
+            }
+            super.write(ctx, msg, promise);
+        }
+    }
+}
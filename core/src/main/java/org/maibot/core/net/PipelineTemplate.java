@@ -0,0 +1,94 @@
+package org.maibot.core.net;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 预计算的处理链模板
+ * <p>
+ * 在路由注册时调用一次处理器工厂，确定各处理器在处理链中的名称与类型，并保留其中可共享的处理器实例；
+ * 建立连接时以模板替换分发器并按预先确定的名称依次接在其后，仅在存在不可共享的处理器时才再次调用工厂。
+ */
+final class PipelineTemplate {
+    private final Supplier<List<ChannelHandler>> factory;
+    /// 各处理器在处理链中的名称
+    private final String[] names;
+    /// 各处理器的类型
+    private final Class<?>[] types;
+    /// 可共享的处理器实例，不可共享的位置为null
+    private final ChannelHandler[] shared;
+    /// 是否需要为每个连接调用工厂
+    private final boolean perConnection;
+
+    /**
+     * @param prefix  处理器名称前缀（如路由路径），用于区分不同模板安装的处理器
+     * @param factory 处理器列表工厂，每次调用返回的处理器类型与顺序应保持一致
+     */
+    PipelineTemplate(String prefix, Supplier<List<ChannelHandler>> factory) {
+        this.factory = factory;
+
+        var probe = factory.get();
+        this.names = new String[probe.size()];
+        this.types = new Class<?>[probe.size()];
+        this.shared = new ChannelHandler[probe.size()];
+        boolean perConnection = false;
+        for (int idx = 0; idx < probe.size(); idx++) {
+            var handler = probe.get(idx);
+            this.types[idx] = handler.getClass();
+            this.names[idx] = prefix + "#" + idx + ":" + types[idx].getSimpleName();
+            if (handler instanceof ChannelHandlerAdapter adapter && adapter.isSharable()) {
+                this.shared[idx] = handler;
+            } else {
+                perConnection = true;
+            }
+        }
+        this.perConnection = perConnection;
+    }
+
+    /**
+     * 获取第一个指定类型的处理器在处理链中的名称
+     *
+     * @param type 处理器类型
+     * @return 处理器名称，不存在时返回null
+     */
+    String nameOf(Class<? extends ChannelHandler> type) {
+        for (int idx = 0; idx < types.length; idx++) {
+            if (type.isAssignableFrom(types[idx])) {
+                return names[idx];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 以模板中的处理器替换指定处理器，其余处理器按顺序紧随其后
+     * <p>
+     * 被替换的处理器的ChannelHandlerContext仍指向模板中的第一个处理器，调用方可继续通过它向后传递消息
+     *
+     * @param pipeline 处理链
+     * @param replaced 被替换的处理器（通常为分发器自身）
+     */
+    void install(ChannelPipeline pipeline, ChannelHandler replaced) {
+        List<ChannelHandler> created = perConnection ? factory.get() : null;
+        if (created != null && created.size() != names.length) {
+            throw new IllegalStateException("Handler factory returned " + created.size() + " handlers, expected " + names.length);
+        }
+        if (names.length == 0) {
+            pipeline.remove(replaced);
+            return;
+        }
+
+        pipeline.replace(replaced, names[0], handlerAt(0, created));
+        for (int idx = 1; idx < names.length; idx++) {
+            pipeline.addAfter(names[idx - 1], names[idx], handlerAt(idx, created));
+        }
+    }
+
+    private ChannelHandler handlerAt(int idx, List<ChannelHandler> created) {
+        return shared[idx] != null ? shared[idx] : created.get(idx);
+    }
+}
@@ -0,0 +1,82 @@
+package org.maibot.core.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import org.maibot.sdk.network.RawProcessors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 协议嗅探器（每个连接一个，不可共享）
+ * <p>
+ * 根据连接的前几个字节选择协议，安装对应的处理链后移除自身，已读取的字节交由新的处理链继续处理：<br>
+ * - 以 {@link RawProcessors#PREFACE} 开头：裸TCP（前导被消费）<br>
+ * - 以HTTP/2连接前导开头：HTTP/2 prior knowledge（前导保留给HTTP/2编解码器校验）<br>
+ * - 其他：HTTP/1.1（含WebSocket与h2c升级，非法请求由HTTP编解码器拒绝）
+ */
+class ProtocolSniffer extends ByteToMessageDecoder {
+    private static final Logger log = LoggerFactory.getLogger(ProtocolSniffer.class);
+
+    public static final String NAME = "protocolSniffer";
+
+    /// HTTP/2连接前导
+    private static final byte[] HTTP2_PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private enum Match {
+        MATCHED, MISMATCHED, NEED_MORE
+    }
+
+    private final Consumer<ChannelPipeline> httpInstaller;
+    private final Consumer<ChannelPipeline> http2Installer;
+    private final Consumer<ChannelPipeline> rawInstaller;
+
+    ProtocolSniffer(Consumer<ChannelPipeline> httpInstaller, Consumer<ChannelPipeline> http2Installer, Consumer<ChannelPipeline> rawInstaller) {
+        this.httpInstaller = httpInstaller;
+        this.http2Installer = http2Installer;
+        this.rawInstaller = rawInstaller;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+        var raw = match(in, RawProcessors.PREFACE);
+        var http2 = match(in, HTTP2_PREFACE);
+        if (raw == Match.NEED_MORE || http2 == Match.NEED_MORE) {
+            // 数据不足以判断，等待更多字节
+            return;
+        }
+
+        if (raw == Match.MATCHED) {
+            log.debug("连接 {} 识别为裸TCP协议", ctx.channel().id());
+            in.skipBytes(RawProcessors.PREFACE.length);
+            install(ctx, rawInstaller);
+        } else if (http2 == Match.MATCHED) {
+            log.debug("连接 {} 识别为HTTP/2协议", ctx.channel().id());
+            install(ctx, http2Installer);
+        } else {
+            log.trace("连接 {} 识别为HTTP协议", ctx.channel().id());
+            install(ctx, httpInstaller);
+        }
+    }
+
+    private static Match match(ByteBuf in, byte[] preface) {
+        int readable = Math.min(in.readableBytes(), preface.length);
+        for (int idx = 0; idx < readable; idx++) {
+            if (in.getByte(in.readerIndex() + idx) != preface[idx]) {
+                return Match.MISMATCHED;
+            }
+        }
+        return readable < preface.length ? Match.NEED_MORE : Match.MATCHED;
+    }
+
+    private void install(ChannelHandlerContext ctx, Consumer<ChannelPipeline> installer) {
+        installer.accept(ctx.pipeline());
+        // 移除时，累积但未消费的字节会被转发给新安装的处理链
+        ctx.pipeline().remove(this);
+    }
+}
@@ -0,0 +1,35 @@
+package org.maibot.core.net;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import org.maibot.sdk.network.ReadPause;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 消息级限流处理器（用于WebSocket与裸TCP连接）
+ * <p>
+ * 超出速率时不丢弃消息，而是暂停连接的读取直至令牌恢复，由TCP流控将压力传导给对端
+ */
+@ChannelHandler.Sharable
+class RateLimitHandler extends ChannelInboundHandlerAdapter {
+    private final RateLimiter rateLimiter;
+    /// 限流路径，为null时仅按远端地址限流
+    private final String path;
+
+    RateLimitHandler(RateLimiter rateLimiter, String path) {
+        this.rateLimiter = rateLimiter;
+        this.path = path;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        long wait = rateLimiter.reserve(ctx.channel(), path);
+        if (wait > 0 && ReadPause.pause(ctx.channel(), this)) {
+            // 只解除本处理器的暂停，其他组件暂停的读取保持不变
+            ctx.executor().schedule(() -> ReadPause.resume(ctx.channel(), this), wait, TimeUnit.NANOSECONDS);
+        }
+        super.channelRead(ctx, msg);
+    }
+}
@@ -0,0 +1,134 @@
+package org.maibot.core.net;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.cdi.annotation.Value;
+import org.maibot.core.config.MainConfig;
+import org.maibot.core.util.TokenBucket;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 网络层限流器
+ * <p>
+ * - 按远端地址限流：同一地址的所有连接（含HTTP/2的各个流）共享一个令牌桶，地址的最后一个连接关闭时移除<br>
+ * - 按WebSocket路径限流：同一路径的所有连接共享一个令牌桶
+ */
+@Component
+public class RateLimiter {
+    private static final AttributeKey<AddressBucket> ADDRESS_BUCKET = AttributeKey.valueOf(RateLimiter.class, "addressBucket");
+
+    /// 远端地址的令牌桶及其连接数（连接数在 addressBuckets 的 compute 中维护）
+    private static final class AddressBucket {
+        private final TokenBucket bucket;
+        private int connections = 0;
+
+        private AddressBucket(TokenBucket bucket) {
+            this.bucket = bucket;
+        }
+    }
+
+    private final Integer addressRate;
+    private final int addressBurst;
+    private final Integer wsPathRate;
+
+    private final Map<String, AddressBucket> addressBuckets = new ConcurrentHashMap<>();
+    private final Map<String, TokenBucket> pathBuckets = new ConcurrentHashMap<>();
+
+    /**
+     * @param conf 网络配置
+     * @throws IllegalArgumentException rate_limit、rate_limit_burst 或 ws_rate_limit 不为正数
+     */
+    @AutoInject
+    public RateLimiter(@Value("${network}") MainConfig.Network conf) {
+        // 在启动时校验，避免在建立连接或收到首条消息时才创建令牌桶失败
+        this.addressRate = requirePositive(conf.rateLimit, "rate_limit");
+        this.addressBurst = Objects.requireNonNullElse(requirePositive(conf.rateLimitBurst, "rate_limit_burst"), Objects.requireNonNullElse(addressRate, 1));
+        this.wsPathRate = requirePositive(conf.wsRateLimit, "ws_rate_limit");
+    }
+
+    private static Integer requirePositive(Integer value, String key) {
+        if (value != null && value <= 0) {
+            throw new IllegalArgumentException("network." + key + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private static String addressOf(Channel ch) {
+        var address = ch.remoteAddress();
+        if (address instanceof InetSocketAddress inet && inet.getAddress() != null) {
+            return inet.getAddress().getHostAddress();
+        }
+        return String.valueOf(address);
+    }
+
+    /**
+     * 为新连接绑定其远端地址的令牌桶，连接关闭时自动解绑
+     *
+     * @param ch 连接
+     */
+    void register(Channel ch) {
+        if (addressRate == null) {
+            return;
+        }
+
+        var address = addressOf(ch);
+        var state = addressBuckets.compute(address, (k, v) -> {
+            if (v == null) {
+                v = new AddressBucket(new TokenBucket(addressRate, addressBurst));
+            }
+            v.connections++;
+            return v;
+        });
+        ch.attr(ADDRESS_BUCKET).set(state);
+        ch.closeFuture().addListener(future -> addressBuckets.computeIfPresent(address, (k, v) -> --v.connections == 0 ? null : v));
+    }
+
+    private static TokenBucket addressBucketOf(Channel ch) {
+        // HTTP/2的流共享父连接的令牌桶
+        var root = ch.parent() != null ? ch.parent() : ch;
+        var state = root.attr(ADDRESS_BUCKET).get();
+        return state == null ? null : state.bucket;
+    }
+
+    /**
+     * 尝试为一个请求取用远端地址的令牌
+     *
+     * @param ch 连接
+     * @return 是否放行
+     */
+    public boolean tryAcquire(Channel ch) {
+        var bucket = addressBucketOf(ch);
+        return bucket == null || bucket.tryAcquire();
+    }
+
+    /**
+     * 为一条消息取用远端地址与指定路径的令牌（允许透支）
+     *
+     * @param ch   连接
+     * @param path WebSocket路径，为null时仅按远端地址限流
+     * @return 连接需要暂停读取的纳秒数，无需暂停时为0
+     */
+    public long reserve(Channel ch, String path) {
+        long wait = 0;
+        var bucket = addressBucketOf(ch);
+        if (bucket != null) {
+            wait = bucket.reserve();
+        }
+        if (path != null && wsPathRate != null) {
+            var pathBucket = pathBuckets.computeIfAbsent(path, k -> new TokenBucket(wsPathRate, wsPathRate));
+            wait = Math.max(wait, pathBucket.reserve());
+        }
+        return wait;
+    }
+
+    /// 是否启用了任何消息级限流
+    boolean isEnabled() {
+        return addressRate != null || wsPathRate != null;
+    }
+}
@@ -0,0 +1,77 @@
+package org.maibot.core.net;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.sdk.network.RawProcessors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 裸TCP连接的分发器
+ * <p>
+ * 以连接的第一帧作为通道名称，以对应 {@link RawProcessors} 注册时预计算的处理链模板替换自身
+ */
+@Component
+@ChannelHandler.Sharable
+public class RawDispatchHandler extends SimpleChannelInboundHandler<ByteBuf> {
+    private static final Logger log = LoggerFactory.getLogger(RawDispatchHandler.class);
+
+    /// 通道名称的最大长度
+    private static final int MAX_NAME_LENGTH = 256;
+
+    /// 通道名称 -> 预计算的处理链模板
+    private final Map<String, PipelineTemplate> templates = new ConcurrentHashMap<>();
+
+    private final RateLimiter rateLimiter;
+
+    @AutoInject
+    public RawDispatchHandler(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public void registerProcessor(RawProcessors processor) {
+        var name = processor.getName();
+        // 裸TCP连接按远端地址限流，限流处理器位于处理链最前
+        var rateLimitHandler = rateLimiter.isEnabled() ? new RateLimitHandler(rateLimiter, null) : null;
+        var template = new PipelineTemplate("raw:" + name, () -> {
+            var handlers = processor.createHandlers();
+            if (rateLimitHandler != null) {
+                handlers.addFirst(rateLimitHandler);
+            }
+            return handlers;
+        });
+        if (templates.put(name, template) != null) {
+            log.warn("已有裸TCP处理器注册，覆盖旧的处理器: NAME: {}", name);
+        }
+        log.debug("注册裸TCP处理器: NAME: {}", name);
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+        if (msg.readableBytes() > MAX_NAME_LENGTH) {
+            log.warn("裸TCP连接 {} 的通道名称过长（{}字节），关闭连接", ctx.channel().id(), msg.readableBytes());
+            ctx.close();
+            return;
+        }
+
+        var name = msg.toString(StandardCharsets.UTF_8);
+        var template = templates.get(name);
+        if (template == null) {
+            log.warn("未找到 NAME: {} 的裸TCP处理器，关闭连接", name);
+            ctx.close();
+            return;
+        }
+
+        log.debug("裸TCP连接 {} 绑定到通道 NAME: {}", ctx.channel().id(), name);
+        // 名称帧之后的数据帧直接交由已安装的处理器，分发器由模板原地替换
+        template.install(ctx.pipeline(), this);
+    }
+}
@@ -0,0 +1,53 @@
+package org.maibot.core.net;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.*;
+
+import java.util.function.BiPredicate;
+
+/**
+ * 按路由选择性聚合的HTTP消息聚合器
+ * <p>
+ * 命中流式路由的请求（请求头及其后的全部请求体分块）直接透传给后续处理器，其余请求照常聚合为 {@link FullHttpRequest}。<br>
+ * 聚合器持有每个连接的解析状态，不可共享。
+ */
+public class RoutingHttpObjectAggregator extends HttpObjectAggregator {
+    private final BiPredicate<Channel, HttpRequest> streamingRoute;
+
+    /// 当前是否处于流式请求的透传阶段
+    private boolean streaming = false;
+
+    /**
+     * @param maxContentLength 聚合请求的最大长度（流式请求不受此限制）
+     * @param streamingRoute   判断连接上的请求是否命中流式路由
+     */
+    public RoutingHttpObjectAggregator(int maxContentLength, BiPredicate<Channel, HttpRequest> streamingRoute) {
+        super(maxContentLength);
+        this.streamingRoute = streamingRoute;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof HttpRequest req && !(msg instanceof FullHttpRequest)) {
+            // 新请求开始，判断是否为流式路由
+            this.streaming = this.streamingRoute.test(ctx.channel(), req);
+        }
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public boolean acceptInboundMessage(Object msg) throws Exception {
+        if (msg instanceof HttpRequest && !(msg instanceof FullHttpRequest)) {
+            if (this.streaming) {
+                return false;
+            }
+        } else if (this.streaming && msg instanceof HttpContent) {
+            if (msg instanceof LastHttpContent) {
+                this.streaming = false;
+            }
+            return false;
+        }
+        return super.acceptInboundMessage(msg);
+    }
+}
@@ -0,0 +1,124 @@
+package org.maibot.core.net;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.uring.IoUring;
+import io.netty.channel.uring.IoUringChannelOption;
+import io.netty.channel.uring.IoUringIoHandler;
+import io.netty.channel.uring.IoUringServerSocketChannel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Locale;
+
+/**
+ * 网络传输层实现
+ * <p>
+ * - NIO：JDK NIO，全平台可用<br>
+ * - EPOLL：Linux原生epoll，支持SO_REUSEPORT<br>
+ * - IO_URING：Linux原生io_uring（需要较新的内核），支持SO_REUSEPORT
+ */
+public enum Transport {
+    NIO,
+    EPOLL,
+    IO_URING;
+
+    private static final Logger log = LoggerFactory.getLogger(Transport.class);
+
+    /**
+     * 当前运行环境是否支持该传输层
+     */
+    public boolean isAvailable() {
+        return switch (this) {
+            case NIO -> true;
+            case EPOLL -> Epoll.isAvailable();
+            case IO_URING -> IoUring.isAvailable();
+        };
+    }
+
+    /**
+     * 是否支持SO_REUSEPORT（多Acceptor监听同一端口）
+     */
+    public boolean supportsReusePort() {
+        return this != NIO;
+    }
+
+    public IoHandlerFactory ioHandlerFactory() {
+        return switch (this) {
+            case NIO -> NioIoHandler.newFactory();
+            case EPOLL -> EpollIoHandler.newFactory();
+            case IO_URING -> IoUringIoHandler.newFactory();
+        };
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return switch (this) {
+            case NIO -> NioServerSocketChannel.class;
+            case EPOLL -> EpollServerSocketChannel.class;
+            case IO_URING -> IoUringServerSocketChannel.class;
+        };
+    }
+
+    /**
+     * 为服务端Channel开启SO_REUSEPORT，不支持时不做任何操作
+     *
+     * @param bootstrap 服务端Bootstrap
+     * @return 是否已开启
+     */
+    public boolean enableReusePort(ServerBootstrap bootstrap) {
+        switch (this) {
+            case EPOLL -> bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            case IO_URING -> bootstrap.option(IoUringChannelOption.SO_REUSEPORT, true);
+            case NIO -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 根据配置选择传输层
+     * <p>
+     * - 为空或为auto时，按 io_uring → epoll → nio 的顺序自动探测（io_uring在内核不支持或被禁用时不可用）<br>
+     * - 指定的传输层不可用时，按同样的顺序降级
+     *
+     * @param name 配置中的传输层名称
+     * @return 可用的传输层
+     */
+    public static Transport select(String name) {
+        if (name == null || name.isBlank() || name.equalsIgnoreCase("auto")) {
+            return firstAvailable(IO_URING);
+        }
+
+        Transport wanted;
+        try {
+            wanted = Transport.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown network transport: " + name, e);
+        }
+
+        var selected = firstAvailable(wanted);
+        if (selected != wanted) {
+            log.warn("传输层 {} 在当前环境不可用，降级为 {}", wanted, selected);
+        }
+        return selected;
+    }
+
+    /// 从指定的传输层开始按 io_uring → epoll → nio 的顺序找到第一个可用的传输层
+    private static Transport firstAvailable(Transport from) {
+        for (int idx = from.ordinal(); idx > 0; idx--) {
+            var candidate = values()[idx];
+            if (candidate.isAvailable()) {
+                return candidate;
+            }
+        }
+        return NIO;
+    }
+}
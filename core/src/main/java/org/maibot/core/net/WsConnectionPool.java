@@ -0,0 +1,83 @@
+package org.maibot.core.net;
+
+import io.netty.channel.ChannelHandlerContext;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 同一WebSocket路径下的连接池
+ * <p>
+ * 连接列表以不可变快照的形式发布，选择连接时无需加锁
+ */
+class WsConnectionPool {
+    @Getter
+    private final String path;
+    private final int maxSize;
+
+    @Setter
+    private volatile WsConnectionSelector selector;
+    @Getter
+    private volatile List<ChannelHandlerContext> connections = List.of();
+
+    /// 无可用连接而丢弃的帧数
+    private final LongAdder droppedCount = new LongAdder();
+
+    WsConnectionPool(String path, int maxSize, WsConnectionSelector selector) {
+        this.path = path;
+        this.maxSize = maxSize;
+        this.selector = selector;
+    }
+
+    /**
+     * 加入连接
+     *
+     * @return 连接池已满时返回false
+     */
+    synchronized boolean add(ChannelHandlerContext ctx) {
+        if (connections.size() >= maxSize) {
+            return false;
+        }
+        var updated = new ArrayList<>(connections);
+        updated.add(ctx);
+        this.connections = List.copyOf(updated);
+        return true;
+    }
+
+    synchronized void remove(ChannelHandlerContext ctx) {
+        var updated = new ArrayList<>(connections);
+        if (updated.remove(ctx)) {
+            this.connections = List.copyOf(updated);
+        }
+    }
+
+    synchronized void clear() {
+        this.connections = List.of();
+    }
+
+    void recordDropped() {
+        droppedCount.increment();
+    }
+
+    long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * 选择一个连接
+     *
+     * @param streamKey 消息所属的交互流键，不属于任何交互流时为 {@link WsConnectionSelector#NO_STREAM}
+     * @return 选中的连接，无活动连接时返回null
+     */
+    ChannelHandlerContext select(long streamKey) {
+        var snapshot = this.connections;
+        return switch (snapshot.size()) {
+            case 0 -> null;
+            case 1 -> snapshot.getFirst();
+            default -> selector.select(snapshot, streamKey);
+        };
+    }
+}
@@ -0,0 +1,100 @@
+package org.maibot.core.net;
+
+import io.netty.channel.ChannelHandlerContext;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WebSocket连接选择策略
+ * <p>
+ * 同一路径存在多个并行连接时，决定消息经由哪个连接发送
+ */
+@FunctionalInterface
+public interface WsConnectionSelector {
+    /// 消息不属于任何交互流（交互流键均为非负数）
+    long NO_STREAM = -1;
+
+    /**
+     * 选择一个连接
+     *
+     * @param connections 当前的活动连接（非空，不可变快照）
+     * @param streamKey   消息所属的交互流键（见 StreamKey），不属于任何交互流时为 {@link #NO_STREAM}
+     * @return 选中的连接
+     */
+    ChannelHandlerContext select(List<ChannelHandlerContext> connections, long streamKey);
+
+    /**
+     * 轮询
+     */
+    static WsConnectionSelector roundRobin() {
+        var counter = new AtomicInteger();
+        return (connections, streamKey) -> connections.get(Math.floorMod(counter.getAndIncrement(), connections.size()));
+    }
+
+    /**
+     * 选择待写出数据最少的连接
+     * <p>
+     * 先比较出站队列中排队的帧数（尚未进入Channel的部分），相同时再比较Channel距离不可写的剩余字节数
+     */
+    static WsConnectionSelector leastPending() {
+        return (connections, streamKey) -> {
+            var selected = connections.getFirst();
+            var minQueued = queuedFrames(selected);
+            var maxRoom = selected.channel().bytesBeforeUnwritable();
+            for (int idx = 1; idx < connections.size(); idx++) {
+                var candidate = connections.get(idx);
+                var queued = queuedFrames(candidate);
+                if (queued > minQueued) {
+                    continue;
+                }
+                var room = candidate.channel().bytesBeforeUnwritable();
+                if (queued < minQueued || room > maxRoom) {
+                    selected = candidate;
+                    minQueued = queued;
+                    maxRoom = room;
+                }
+            }
+            return selected;
+        };
+    }
+
+    private static int queuedFrames(ChannelHandlerContext ctx) {
+        var queue = WsOutboundQueue.of(ctx.channel());
+        return queue == null ? 0 : queue.pending();
+    }
+
+    /**
+     * 按交互流键固定连接，保证同一交互流的消息经由同一连接按序发送（连接数变化时会重新分配）<br>
+     * 不属于任何交互流的消息退化为轮询
+     */
+    static WsConnectionSelector sticky() {
+        var fallback = roundRobin();
+        return (connections, streamKey) -> {
+            if (streamKey == NO_STREAM) {
+                return fallback.select(connections, NO_STREAM);
+            }
+            int hash = Long.hashCode(streamKey);
+            return connections.get(Math.floorMod(hash ^ (hash >>> 16), connections.size()));
+        };
+    }
+
+    /**
+     * 根据配置名称创建选择策略
+     *
+     * @param name round_robin / least_pending / sticky，为空时使用round_robin
+     * @return 选择策略
+     */
+    static WsConnectionSelector of(String name) {
+        if (name == null || name.isBlank()) {
+            return roundRobin();
+        }
+        return switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "round_robin" -> roundRobin();
+            case "least_pending" -> leastPending();
+            case "sticky" -> sticky();
+            default -> throw new IllegalArgumentException("Unknown WebSocket select strategy: " + name);
+        };
+    }
+}
@@ -1,63 +1,83 @@
 package org.maibot.core.net;
 
 import io.netty.channel.ChannelFutureListener;
-import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
 import org.maibot.core.cdi.annotation.AutoInject;
 import org.maibot.core.cdi.annotation.Component;
 import org.maibot.sdk.network.WsProcessors;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * WebSocket升级分发器
+ * <p>
+ * 由 {@link DispatchHandler} 在识别到升级请求时直接调用，按路径安装注册时预计算的处理链模板
+ */
 @Component
-@ChannelHandler.Sharable
-public class WsDispatchHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+public class WsDispatchHandler {
     private static final Logger log = org.slf4j.LoggerFactory.getLogger(WsDispatchHandler.class);
 
     private final ActiveWsManager activeWsManager;
+    private final RateLimiter rateLimiter;
 
-    private final Map<String, WsProcessors> processors = new HashMap<>();
+    /**
+     * WebSocket路由
+     *
+     * @param template            处理链模板
+     * @param protocolHandlerName 模板中WebSocketServerProtocolHandler的名称（出站队列紧随其后安装）
+     */
+    private record WsRoute(PipelineTemplate template, String protocolHandlerName) {
+    }
+
+    private final Map<String, WsRoute> routes = new ConcurrentHashMap<>();
 
     @AutoInject
-    public WsDispatchHandler(ActiveWsManager activeWsManager) {
-        super();
+    public WsDispatchHandler(ActiveWsManager activeWsManager, RateLimiter rateLimiter) {
         this.activeWsManager = activeWsManager;
+        this.rateLimiter = rateLimiter;
     }
 
     public void registerProcessor(WsProcessors processor) {
         var path = processor.getPath();
-        if (processors.containsKey(path)) {
+        // 限流处理器按路径共享，紧随协议处理器之后，仅统计握手后的WebSocket帧
+        var rateLimitHandler = rateLimiter.isEnabled() ? new RateLimitHandler(rateLimiter, path) : null;
+        var template = new PipelineTemplate("ws:" + path, () -> {
+            var handlers = processor.createHandlers();
+            if (rateLimitHandler != null) {
+                for (int idx = 0; idx < handlers.size(); idx++) {
+                    if (handlers.get(idx) instanceof WebSocketServerProtocolHandler) {
+                        handlers.add(idx + 1, rateLimitHandler);
+                        break;
+                    }
+                }
+            }
+            return handlers;
+        });
+        var route = new WsRoute(template, template.nameOf(WebSocketServerProtocolHandler.class));
+        if (routes.put(path, route) != null) {
             log.warn("已有WS处理器注册，覆盖旧的处理器: PATH: {}", path);
         }
-        processors.put(path, processor);
         log.debug("注册WS处理器: PATH: {}", path);
     }
 
-    @Override
-    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest req) {
-        var parser = new QueryStringDecoder(req.uri());
-        var path = parser.path();
-        if (processors.containsKey(path)) {
-            log.trace("找到 PATH: {} 的WS处理器，开始处理", path);
-
-            activeWsManager.addConnection(path, ctx);
-
-            for (var handler : processors.get(path).getHandlers()) {
-                String uniqueHandlerName = handler.getClass().getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(handler));
-                ctx.pipeline().addBefore("exceptionHandler", uniqueHandlerName, handler);
-            }
-
-            ctx.fireChannelRead(req);
-
-            ctx.pipeline().remove(this); // 移除调度处理器，避免重复处理
-        } else {
+    /**
+     * 处理WebSocket升级请求
+     * <p>
+     * 以路径对应的处理链替换分发器并将请求交由握手处理器
+     *
+     * @param ctx 分发器的ChannelHandlerContext
+     * @param req 升级请求（本方法不释放）
+     */
+    public void upgrade(ChannelHandlerContext ctx, FullHttpRequest req) {
+        var path = HttpRouter.pathOf(req.uri());
+        var route = routes.get(path);
+        if (route == null) {
             log.warn("未找到 PATH: {} 的WS处理器，返回404", path);
             var resp = new DefaultHttpResponse(
                     req.protocolVersion(),
@@ -65,6 +85,30 @@ public class WsDispatchHandler extends SimpleChannelInboundHandler<FullHttpReque
             );
 
             ctx.writeAndFlush(resp).addListener(ChannelFutureListener.CLOSE);
+            return;
         }
+
+        log.trace("找到 PATH: {} 的WS处理器，开始处理", path);
+        if (!activeWsManager.addConnection(path, ctx)) {
+            return;
+        }
+
+        var pipeline = ctx.pipeline();
+        // 升级后不再有HTTP请求，移除HTTP分发器与h2c升级处理器（后者同为聚合器，会妨碍握手时移除真正的聚合器）
+        // WebSocket为长连接，空闲期间的存活由ping/pong判断，同时移除空闲连接检测
+        for (var name : new String[]{DispatchHandler.HTTP_DISPATCHER_NAME, "h2cUpgradeHandler", InnerServer.IDLE_HANDLER_NAME}) {
+            if (pipeline.get(name) != null) {
+                pipeline.remove(name);
+            }
+        }
+
+        // 升级后数据均为WebSocket帧，分发器失去作用，由处理链模板原地替换
+        route.template().install(pipeline, ctx.handler());
+        // 出站队列紧跟在协议处理器之后，以便可靠地收到握手完成事件
+        pipeline.addAfter(route.protocolHandlerName(), WsOutboundQueue.NAME,
+                new WsOutboundQueue(ctx.channel(), activeWsManager.getOutboundQueueCapacity()));
+
+        // 分发器被替换后其ctx指向模板中的第一个处理器；握手处理器会自行释放请求，调用方随后也会释放一次
+        ctx.fireChannelRead(req.retain());
     }
 }
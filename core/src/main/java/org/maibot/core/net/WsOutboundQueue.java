@@ -0,0 +1,207 @@
+package org.maibot.core.net;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.AttributeKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * WebSocket连接的出站队列（每个连接一个，不可共享）
+ * <p>
+ * - 任意线程均可投递帧，队列有界，满时丢弃并计数<br>
+ * - 投递后最多调度一次排空任务，同一事件循环周期内投递的帧合并为一次flush<br>
+ * - 连接不可写时暂停排空，待 channelWritabilityChanged 恢复；生产者可通过 {@link #isWritable()} 感知背压<br>
+ * - 握手完成前投递的帧暂存在队列中，握手完成后再写出
+ */
+public class WsOutboundQueue extends ChannelInboundHandlerAdapter {
+    private static final Logger log = LoggerFactory.getLogger(WsOutboundQueue.class);
+
+    public static final String NAME = "wsOutboundQueue";
+    private static final AttributeKey<WsOutboundQueue> KEY = AttributeKey.valueOf(WsOutboundQueue.class, "queue");
+
+    private final Channel channel;
+    private final int capacity;
+
+    private final Queue<WebSocketFrame> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    private volatile boolean handshakeComplete = false;
+    /// 已投递关闭帧，不再接受新的帧
+    private volatile boolean closing = false;
+
+    private final LongAdder queuedCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder flushCount = new LongAdder();
+
+    public WsOutboundQueue(Channel channel, int capacity) {
+        this.channel = channel;
+        this.capacity = capacity;
+        channel.attr(KEY).set(this);
+    }
+
+    /**
+     * 获取连接上的出站队列
+     *
+     * @param channel 连接
+     * @return 出站队列，未安装时返回null
+     */
+    public static WsOutboundQueue of(Channel channel) {
+        return channel.attr(KEY).get();
+    }
+
+    /**
+     * 投递一帧
+     *
+     * @param frame 待发送的帧（未被接受时由本方法释放）
+     * @return 是否已进入队列
+     */
+    public boolean offer(WebSocketFrame frame) {
+        if (!channel.isActive() || closing) {
+            drop(frame);
+            return false;
+        }
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            log.debug("连接 {} 的出站队列已满（{}），丢弃待发送的帧", channel.id(), capacity);
+            drop(frame);
+            return false;
+        }
+
+        queue.offer(frame);
+        queuedCount.increment();
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * 在已排队的帧之后投递关闭帧（不受容量限制），此后投递的帧均被丢弃
+     *
+     * @param frame 关闭帧
+     */
+    public void close(CloseWebSocketFrame frame) {
+        if (!channel.isActive() || closing) {
+            frame.release();
+            return;
+        }
+        closing = true;
+        size.incrementAndGet();
+        queue.offer(frame);
+        scheduleDrain();
+    }
+
+    /**
+     * 连接当前是否可以继续接收帧（连接可写且队列未满）
+     * <p>
+     * 生产者应在不可写时暂停投递
+     */
+    public boolean isWritable() {
+        return channel.isWritable() && size.get() < capacity;
+    }
+
+    /// 当前排队中的帧数
+    public int pending() {
+        return size.get();
+    }
+
+    /// 累计进入队列的帧数
+    public long getQueuedCount() {
+        return queuedCount.sum();
+    }
+
+    /// 累计丢弃的帧数（队列已满或连接已关闭）
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /// 累计写出的帧数
+    public long getWrittenCount() {
+        return writtenCount.sum();
+    }
+
+    /// 累计flush次数
+    public long getFlushCount() {
+        return flushCount.sum();
+    }
+
+    private void drop(WebSocketFrame frame) {
+        droppedCount.increment();
+        frame.release();
+    }
+
+    private void scheduleDrain() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            channel.eventLoop().execute(this::drain);
+        }
+    }
+
+    /**
+     * 在事件循环上排空队列：连接可写时尽量写出，最后统一flush一次
+     */
+    private void drain() {
+        drainScheduled.set(false);
+        if (!channel.isActive()) {
+            // 与连接关闭并发投递的帧
+            dropAll();
+            return;
+        }
+        if (!handshakeComplete) {
+            return;
+        }
+
+        int written = 0;
+        WebSocketFrame frame;
+        while (channel.isWritable() && (frame = queue.poll()) != null) {
+            size.decrementAndGet();
+            channel.write(frame, channel.voidPromise());
+            written++;
+        }
+        if (written > 0) {
+            writtenCount.add(written);
+            flushCount.increment();
+            channel.flush();
+        }
+    }
+
+    @Override
+    public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+        if (evt instanceof WebSocketServerProtocolHandler.HandshakeComplete) {
+            this.handshakeComplete = true;
+            drain();
+        }
+        super.userEventTriggered(ctx, evt);
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isWritable()) {
+            drain();
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        dropAll();
+        super.channelInactive(ctx);
+    }
+
+    private void dropAll() {
+        WebSocketFrame frame;
+        while ((frame = queue.poll()) != null) {
+            size.decrementAndGet();
+            drop(frame);
+        }
+    }
+}
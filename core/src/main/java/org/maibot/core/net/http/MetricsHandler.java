@@ -0,0 +1,27 @@
+package org.maibot.core.net.http;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import org.maibot.core.net.NetworkMetrics;
+import org.maibot.sdk.network.HttpRequestProcessor;
+import org.maibot.sdk.network.HttpResponses;
+
+/**
+ * 以Prometheus文本格式导出网络层指标
+ */
+public class MetricsHandler extends HttpRequestProcessor {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final NetworkMetrics networkMetrics;
+
+    public MetricsHandler(NetworkMetrics networkMetrics) {
+        super(HttpMethod.GET, "/metrics", MetricsHandler.class);
+        this.networkMetrics = networkMetrics;
+    }
+
+    public HttpResponse handleRequest(FullHttpRequest req) {
+        return HttpResponses.text(req, HttpResponseStatus.OK, CONTENT_TYPE, networkMetrics.toPrometheus());
+    }
+}
@@ -1,24 +1,19 @@
 package org.maibot.core.net.http;
 
-import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.*;
 import org.maibot.sdk.network.HttpRequestProcessor;
-import org.slf4j.LoggerFactory;
-
-import java.nio.charset.StandardCharsets;
+import org.maibot.sdk.network.HttpResponses;
 
 public class PingPongHandler extends HttpRequestProcessor {
+    /// 健康检查的固定响应，每次请求仅复制引用
+    private static final HttpResponses.CachedResponse PONG =
+            HttpResponses.cached(HttpResponseStatus.OK, HttpResponses.TEXT_PLAIN, "pong");
+
     public PingPongHandler() {
         super(HttpMethod.GET, "/ping", PingPongHandler.class);
     }
 
     public HttpResponse handleRequest(FullHttpRequest req) {
-        var resp = new DefaultFullHttpResponse(
-                req.protocolVersion(),
-                HttpResponseStatus.OK,
-                Unpooled.copiedBuffer("pong", StandardCharsets.UTF_8)
-        );
-        resp.headers().set("Content-Type", "text/plain; charset=UTF-8");
-        return resp;
+        return PONG.newResponse(req);
     }
 }
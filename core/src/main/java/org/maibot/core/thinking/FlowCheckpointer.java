@@ -0,0 +1,187 @@
+package org.maibot.core.thinking;
+
+import jakarta.persistence.EntityManager;
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.cdi.annotation.Value;
+import org.maibot.core.config.MainConfig;
+import org.maibot.core.db.DatabaseService;
+import org.maibot.core.db.dao.InteractionEntity;
+import org.maibot.core.db.dao.InteractionGroup;
+import org.maibot.core.db.dao.InteractionStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 思维流状态的延迟写回（write-behind）
+ * <p>
+ * - 思维流状态变化时只标记为脏并入队（每个思维流在写回前至多入队一次），消息路径上没有数据库写入<br>
+ * - 定期将脏的思维流分批写回交互流记录，每批一个事务<br>
+ * - 关闭时只写回尚未写回的部分
+ * <p>
+ * 观察窗口的内容来自消息表，载入时由消息表重建，因此只需写回状态与活跃时间；新的交互流在首次写回时创建记录
+ */
+@Component
+public class FlowCheckpointer {
+    private static final Logger log = LoggerFactory.getLogger(FlowCheckpointer.class);
+
+    /// 每个事务写回的思维流数
+    private static final int BATCH_SIZE = 500;
+
+    private final DatabaseService databaseService;
+    private final ObservationScheduler observationScheduler;
+    /// 写回间隔（毫秒）
+    private final long intervalMs;
+
+    private final Queue<ThinkingFlow> dirtyFlows = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = false;
+
+    @AutoInject
+    public FlowCheckpointer(
+            @Value("${thinking}") MainConfig.Thinking conf,
+            DatabaseService databaseService,
+            ObservationScheduler observationScheduler
+    ) {
+        this.databaseService = databaseService;
+        this.observationScheduler = observationScheduler;
+        this.intervalMs = TimeUnit.SECONDS.toMillis(Objects.requireNonNullElse(conf.checkpointInterval, 10));
+    }
+
+    /**
+     * 将思维流加入待写回队列（由思维流在首次变脏时调用）
+     *
+     * @param flow 思维流
+     */
+    void enqueue(ThinkingFlow flow) {
+        this.dirtyFlows.offer(flow);
+    }
+
+    /**
+     * 开始定期写回
+     */
+    public void start() {
+        this.running = true;
+        this.scheduleCheckpoint();
+    }
+
+    /**
+     * 停止定期写回，并写回剩余的脏思维流
+     */
+    public void stop() {
+        this.running = false;
+        var count = this.flush();
+        log.debug("关闭时写回了 {} 个交互流的状态", count);
+    }
+
+    private void scheduleCheckpoint() {
+        if (this.running) {
+            this.observationScheduler.schedule(this::checkpoint, this.intervalMs);
+        }
+    }
+
+    private void checkpoint() {
+        try {
+            var count = this.flush();
+            if (count > 0) {
+                log.trace("写回了 {} 个交互流的状态", count);
+            }
+        } catch (Exception e) {
+            log.error("交互流状态写回失败，将在下次检查点重试", e);
+        } finally {
+            this.scheduleCheckpoint();
+        }
+    }
+
+    /**
+     * 分批写回当前所有脏的思维流
+     * <p>
+     * 写回前先清除脏标记，写回过程中再次变化的思维流会重新入队；写回失败的批次重新标记为脏后抛出异常
+     *
+     * @return 写回的思维流数
+     */
+    public synchronized int flush() {
+        int total = 0;
+        var batch = new ArrayList<ThinkingFlow>(BATCH_SIZE);
+        while (true) {
+            batch.clear();
+            ThinkingFlow flow;
+            while (batch.size() < BATCH_SIZE && (flow = this.dirtyFlows.poll()) != null) {
+                if (flow.clearDirty()) {
+                    batch.add(flow);
+                }
+            }
+            if (batch.isEmpty()) {
+                return total;
+            }
+
+            try {
+                this.persist(batch);
+            } catch (Exception e) {
+                batch.forEach(ThinkingFlow::markDirty);
+                throw e;
+            }
+            total += batch.size();
+        }
+    }
+
+    /**
+     * 将思维流的状态与活跃时间写回交互流记录（一个事务），记录不存在时创建
+     *
+     * @param flows 思维流
+     */
+    private void persist(Collection<ThinkingFlow> flows) {
+        databaseService.exec(em -> {
+            for (var flow : flows) {
+                var stream = em.find(InteractionStream.class, flow.getId());
+                if (stream == null) {
+                    stream = newStream(em, flow.getId());
+                    if (stream == null) {
+                        continue;
+                    }
+                    em.persist(stream);
+                }
+                stream.setState(flow.getState().getCode());
+                stream.setLastActiveAt(flow.getLastActiveTimestamp());
+            }
+        });
+    }
+
+    /**
+     * 创建交互流记录
+     *
+     * @param em       EntityManager
+     * @param streamKey 交互流键
+     * @return 交互流记录，对应的群聊或私聊对象不存在时返回null
+     */
+    private InteractionStream newStream(EntityManager em, long streamKey) {
+        var key = StreamKey.of(streamKey);
+        InteractionStream stream = new InteractionStream();
+        stream.setId(streamKey);
+
+        if (key.isPrivate()) {
+            // 私聊流：查询对应的私聊对象是否存在
+            var res = em.find(InteractionEntity.class, key.id());
+            if (res == null) {
+                log.error("InteractionEntity with ID {} does not exist, skip persisting stream {}. This shouldn't happen.", key.id(), key);
+                return null;
+            }
+            stream.setEntity(res);
+        } else {
+            // 群聊流：查询对应的群聊对象是否存在
+            var res = em.find(InteractionGroup.class, key.id());
+            if (res == null) {
+                log.error("InteractionGroup with ID {} does not exist, skip persisting stream {}. This shouldn't happen.", key.id(), key);
+                return null;
+            }
+            stream.setGroup(res);
+        }
+        return stream;
+    }
+}
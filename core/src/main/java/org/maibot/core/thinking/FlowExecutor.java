@@ -0,0 +1,97 @@
+package org.maibot.core.thinking;
+
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.cdi.annotation.Value;
+import org.maibot.core.config.MainConfig;
+import org.maibot.core.util.MetricsRegistry;
+import org.maibot.core.util.ShardedExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 思维流执行器
+ * <p>
+ * 同一交互流的全部工作（消息处理、观察、状态变更、回收）都在按交互流ID分配的同一通道上串行执行，
+ * 因此思维流内部的状态只会被一个线程访问；不同交互流分散在各通道上并行。
+ */
+@Component
+public class FlowExecutor {
+    private static final Logger log = LoggerFactory.getLogger(FlowExecutor.class);
+
+    private final ShardedExecutor lanes;
+
+    @AutoInject
+    public FlowExecutor(@Value("${thinking}") MainConfig.Thinking conf, MetricsRegistry metricsRegistry) {
+        this.lanes = new ShardedExecutor(
+                "Flow",
+                Objects.requireNonNullElse(conf.flowLanes, Runtime.getRuntime().availableProcessors())
+        );
+        metricsRegistry.register(this::writePrometheus);
+    }
+
+    /**
+     * 在交互流所属的通道上执行任务
+     *
+     * @param streamKey 交互流键
+     * @param task      任务
+     */
+    public void execute(long streamKey, Runnable task) {
+        try {
+            this.lanes.execute(streamKey, task);
+        } catch (RejectedExecutionException e) {
+            log.debug("思维流执行器已关闭，丢弃交互流 {} 的任务", StreamKey.of(streamKey));
+        }
+    }
+
+    /// 通道数
+    public int getLaneCount() {
+        return this.lanes.getLaneCount();
+    }
+
+    /// 各通道排队中的任务数
+    public int[] getQueueDepths() {
+        return this.lanes.getQueueDepths();
+    }
+
+    /// 各通道累计完成的任务数
+    public long[] getCompletedTaskCounts() {
+        return this.lanes.getCompletedTaskCounts();
+    }
+
+    /**
+     * 导出各通道的排队任务数与累计完成数
+     */
+    private void writePrometheus(StringBuilder sb) {
+        MetricsRegistry.header(sb, "maibot_flow_lane_queue_depth", "gauge", "Tasks waiting in each flow lane");
+        MetricsRegistry.header(sb, "maibot_flow_lane_completed_total", "counter", "Tasks completed by each flow lane");
+        var queueDepths = getQueueDepths();
+        var completed = getCompletedTaskCounts();
+        for (int lane = 0; lane < queueDepths.length; lane++) {
+            var labels = "lane=\"" + lane + "\"";
+            MetricsRegistry.sample(sb, "maibot_flow_lane_queue_depth", labels, queueDepths[lane]);
+            MetricsRegistry.sample(sb, "maibot_flow_lane_completed_total", labels, completed[lane]);
+        }
+    }
+
+    /**
+     * 关闭执行器，等待已提交的任务执行完毕
+     *
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        try {
+            if (!this.lanes.shutdown(timeout, unit)) {
+                log.warn("等待思维流任务完成超时，剩余任务数: {}", Arrays.stream(getQueueDepths()).sum());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.maibot.core.thinking;
+
+import org.maibot.core.db.dao.Message;
+
+/**
+ * 观察窗口中的消息快照
+ * <p>
+ * 只保留观察所需的字段，不持有JPA实体及其关联对象，可在线程间自由传递
+ *
+ * @param id         消息ID
+ * @param senderId   发送者（交互实体）ID
+ * @param createdAt  消息创建时间
+ * @param observedAt 消息进入观察窗口的时间戳（毫秒）
+ */
+public record MessageSnapshot(Long id, Long senderId, String createdAt, long observedAt) {
+    /**
+     * 由消息实体创建快照
+     *
+     * @param message 消息实体
+     * @return 消息快照
+     */
+    public static MessageSnapshot of(Message message) {
+        var senderId = message.getSenderEntityId();
+        if (senderId == null && message.getSender() != null) {
+            senderId = message.getSender().getId();
+        }
+        return new MessageSnapshot(message.getId(), senderId, message.getCreatedAt(), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,91 @@
+package org.maibot.core.thinking;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.maibot.core.cdi.annotation.AutoInject;
+import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.util.TaskExecutorService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 观察调度器
+ * <p>
+ * 所有思维流共享一个时间轮（{@link HashedWheelTimer}）：<br>
+ * - 时间轮只负责在到期时触发，不执行任务本身，单线程即可承载数万个定时<br>
+ * - 思维流的观察被投递到交互流所属的 {@link FlowExecutor} 通道，与该交互流的消息处理串行执行<br>
+ * - 休眠的思维流不持有任何定时与线程
+ */
+@Component
+public class ObservationScheduler {
+    private static final Logger log = LoggerFactory.getLogger(ObservationScheduler.class);
+
+    /// 时间轮的刻度（毫秒），观察间隔为秒级，100ms的误差可以接受
+    private static final long TICK_MS = 100;
+    /// 时间轮的槽数（512 × 100ms ≈ 51s 一圈）
+    private static final int TICKS_PER_WHEEL = 512;
+
+    private final HashedWheelTimer timer;
+    private final FlowExecutor flowExecutor;
+    private final TaskExecutorService taskExecutorService;
+
+    @AutoInject
+    public ObservationScheduler(FlowExecutor flowExecutor, TaskExecutorService taskExecutorService) {
+        this.flowExecutor = flowExecutor;
+        this.taskExecutorService = taskExecutorService;
+        this.timer = new HashedWheelTimer(
+                new DefaultThreadFactory("Observe-Timer"),
+                TICK_MS,
+                TimeUnit.MILLISECONDS,
+                TICKS_PER_WHEEL
+        );
+    }
+
+    /**
+     * 在指定延迟后于交互流所属的通道上执行任务
+     *
+     * @param streamKey 交互流键
+     * @param task      任务
+     * @param delayMs   延迟（毫秒），0表示在下一个刻度触发
+     * @return 定时句柄，可用于取消尚未触发的任务；调度器已关闭时返回null
+     */
+    public Timeout schedule(long streamKey, Runnable task, long delayMs) {
+        return newTimeout(() -> flowExecutor.execute(streamKey, task), delayMs);
+    }
+
+    /**
+     * 在指定延迟后于公共线程池上执行任务（用于不属于某个交互流的周期性工作）
+     *
+     * @param task    任务
+     * @param delayMs 延迟（毫秒）
+     * @return 定时句柄；调度器已关闭时返回null
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        return newTimeout(() -> taskExecutorService.submit(task, false), delayMs);
+    }
+
+    private Timeout newTimeout(Runnable dispatch, long delayMs) {
+        try {
+            return timer.newTimeout(timeout -> dispatch.run(), delayMs, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // 时间轮已停止
+            return null;
+        }
+    }
+
+    /// 等待触发的定时数
+    public long getPendingTimeouts() {
+        return timer.pendingTimeouts();
+    }
+
+    /**
+     * 关闭调度器：取消全部未触发的定时
+     */
+    public void shutdown() {
+        var cancelled = timer.stop();
+        log.debug("观察调度器已关闭，取消了 {} 个未触发的定时", cancelled.size());
+    }
+}
@@ -0,0 +1,99 @@
+package org.maibot.core.thinking;
+
+import org.maibot.core.db.dao.InteractionStream;
+
+/**
+ * 交互流ID的结构化形式
+ * <p>
+ * 交互流ID形如 <code>G-123</code>（群聊）或 <code>P-456</code>（私聊），数字部分为群组或交互实体的ID。<br>
+ * 内存与数据库中使用压缩后的 long 键：<code>(id << 1) | (isPrivate ? 1 : 0)</code>（见 {@link InteractionStream#idGen}），
+ * 字符串形式只用于与外部交互和日志。
+ *
+ * @param id        群组或交互实体的ID
+ * @param isPrivate 是否为私聊流
+ */
+public record StreamKey(long id, boolean isPrivate) {
+    /// 群组或交互实体ID的上限（保留最低位给私聊标记）
+    private static final long MAX_ID = Long.MAX_VALUE >>> 1;
+
+    public StreamKey {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Stream target id out of range: " + id);
+        }
+    }
+
+    /**
+     * 解析交互流ID
+     *
+     * @param streamId 交互流ID
+     * @return 交互流键
+     * @throws IllegalArgumentException ID格式不正确
+     */
+    public static StreamKey parse(CharSequence streamId) {
+        return of(parseKey(streamId));
+    }
+
+    /**
+     * 将交互流ID直接解析为压缩键（逐字符扫描，不使用正则与字符串切分，不分配对象）
+     *
+     * @param streamId 交互流ID
+     * @return 压缩键
+     * @throws IllegalArgumentException ID格式不正确
+     */
+    public static long parseKey(CharSequence streamId) {
+        int length = streamId.length();
+        if (length < 3 || streamId.charAt(1) != '-') {
+            throw new IllegalArgumentException("Invalid stream id: " + streamId);
+        }
+
+        boolean isPrivate;
+        switch (streamId.charAt(0)) {
+            case 'P' -> isPrivate = true;
+            case 'G' -> isPrivate = false;
+            default -> throw new IllegalArgumentException("Invalid stream id: " + streamId);
+        }
+
+        long id = 0;
+        for (int idx = 2; idx < length; idx++) {
+            int digit = streamId.charAt(idx) - '0';
+            if (digit < 0 || digit > 9 || id > (MAX_ID - digit) / 10) {
+                throw new IllegalArgumentException("Invalid stream id: " + streamId);
+            }
+            id = id * 10 + digit;
+        }
+        return InteractionStream.idGen(id, isPrivate);
+    }
+
+    /**
+     * 由压缩键还原
+     *
+     * @param key 压缩键
+     * @return 交互流键
+     */
+    public static StreamKey of(long key) {
+        return new StreamKey(key >>> 1, (key & 1) != 0);
+    }
+
+    /**
+     * 转换为压缩键
+     *
+     * @return 压缩键
+     */
+    public long packed() {
+        return InteractionStream.idGen(id, isPrivate);
+    }
+
+    /**
+     * 转换为交互流ID
+     *
+     * @return 交互流ID
+     */
+    public String toStreamId() {
+        return (isPrivate ? "P-" : "G-") + id;
+    }
+
+    @Override
+    public String toString() {
+        return toStreamId();
+    }
+}
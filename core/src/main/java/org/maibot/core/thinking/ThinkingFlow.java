@@ -1,18 +1,22 @@
 package org.maibot.core.thinking;
 
+import io.netty.util.Timeout;
 import lombok.Getter;
 import lombok.Setter;
 import org.maibot.core.cdi.annotation.Component;
 import org.maibot.core.db.dao.InteractionStream;
 import org.maibot.core.db.dao.Message;
+import org.maibot.core.util.SnapshotRingBuffer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 思维流组件
@@ -38,70 +42,244 @@ public class ThinkingFlow {
         boolean isAtLeast(FlowState other) {
             return this.code >= other.code;
         }
-    }
 
-    private final int OBSERVATION_WINDOW_SIZE;
+        /**
+         * 由状态码获取状态
+         *
+         * @param code 状态码，为null或未知时视为休眠
+         * @return 交互流状态
+         */
+        public static FlowState of(Integer code) {
+            if (code != null) {
+                for (var state : values()) {
+                    if (state.code == code) {
+                        return state;
+                    }
+                }
+            }
+            return SLEEPING;
+        }
+    }
 
     /// 交互流ID
-    private final String id;
+    @Getter
+    private final long id;
     /// 观察者
-    private final FlowObserver flowObserver = new FlowObserver(this);
+    private final FlowObserver flowObserver;
+    /// 执行器（本交互流的全部工作在其中的同一通道上串行执行）
+    private final FlowExecutor flowExecutor;
+    /// 状态写回
+    private final FlowCheckpointer flowCheckpointer;
+    /// 状态自上次写回后是否发生变化
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
 
     /// 交互流状态
     @Getter
-    private FlowState state = FlowState.SLEEPING;
+    private volatile FlowState state = FlowState.SLEEPING;
     /// 上次活跃时间戳
     @Getter
-    private long lastActiveTimestamp = System.currentTimeMillis();
-    /// 交互流观察窗口
-    private final Deque<Message> observationWindow = new ArrayDeque<>();
+    private volatile long lastActiveTimestamp = System.currentTimeMillis();
+    /// 交互流观察窗口（单写者环形缓冲区，观察者无锁读取快照）
+    private final SnapshotRingBuffer<MessageSnapshot> observationWindow;
+    /// 是否已从数据库载入（载入前的变化不加入写回队列）
+    private volatile boolean hydrated = false;
+    /// 载入完成前收到的消息
+    private Deque<MessageSnapshot> pendingMessages;
 
-    protected ThinkingFlow(int max_observation_window_size, String id) {
-        this.OBSERVATION_WINDOW_SIZE = max_observation_window_size;
+    protected ThinkingFlow(
+            int max_observation_window_size,
+            long id,
+            FlowExecutor flowExecutor,
+            ObservationScheduler observationScheduler,
+            FlowCheckpointer flowCheckpointer
+    ) {
+        this.observationWindow = new SnapshotRingBuffer<>(max_observation_window_size);
 
         this.id = id;
+        this.flowExecutor = flowExecutor;
+        this.flowObserver = new FlowObserver(this, observationScheduler);
+        this.flowCheckpointer = flowCheckpointer;
     }
 
-    public static String idGen(Long id, boolean isPrivate) {
+    public static long idGen(long id, boolean isPrivate) {
         return InteractionStream.idGen(id, isPrivate);
     }
 
+    /**
+     * 开始观察（处于激活或更高状态时立即触发一次观察，此后按状态的观察间隔触发）
+     */
     public void observe() {
-        this.flowObserver.run();
+        this.flowExecutor.execute(this.id, () -> this.flowObserver.onStateChange(this.state));
     }
 
     public void stopObserving() {
-        this.flowObserver.stop();
+        this.flowExecutor.execute(this.id, this.flowObserver::stop);
     }
 
     public void setState(FlowState newState) {
         this.state = newState;
-        this.flowObserver.onStateChange(newState);
+        this.markDirty();
+        this.flowExecutor.execute(this.id, () -> this.flowObserver.onStateChange(newState));
     }
 
+    /**
+     * 将消息加入观察窗口，窗口已满时覆盖最旧的消息
+     * <p>
+     * 须在本交互流的 {@link FlowExecutor} 通道上调用（见 {@link ThinkingFlowManager#dispatchMessage}）
+     *
+     * @param message 消息
+     */
     public void addToObservationWindow(Message message) {
-        this.observationWindow.addLast(message);
-        // 限制观察窗口大小，例如最多保留最近100条消息
-        while (this.observationWindow.size() > OBSERVATION_WINDOW_SIZE) {
-            this.observationWindow.removeFirst();
+        var snapshot = MessageSnapshot.of(message);
+        if (this.hydrated) {
+            this.observationWindow.add(snapshot);
+        } else {
+            // 尚未从数据库载入，暂存（至多保留一个观察窗口的消息）
+            if (this.pendingMessages == null) {
+                this.pendingMessages = new ArrayDeque<>();
+            }
+            if (this.pendingMessages.size() >= this.observationWindow.capacity()) {
+                this.pendingMessages.removeFirst();
+            }
+            this.pendingMessages.addLast(snapshot);
         }
         this.lastActiveTimestamp = System.currentTimeMillis();
+        this.markDirty();
         if (!this.state.isAtLeast(FlowState.ACTIVE)) {
             this.setState(FlowState.ACTIVE);
         }
     }
 
+    /**
+     * 标记状态已变化，首次标记时加入写回队列
+     * <p>
+     * 尚未载入的思维流只记录标记，载入完成后再加入写回队列，避免写回不存在的交互流
+     */
+    void markDirty() {
+        if (!this.dirty.get() && this.dirty.compareAndSet(false, true) && this.hydrated) {
+            this.flowCheckpointer.enqueue(this);
+        }
+    }
+
+    /**
+     * 清除脏标记（写回前调用）
+     *
+     * @return 清除前是否为脏
+     */
+    boolean clearDirty() {
+        return this.dirty.getAndSet(false);
+    }
+
+    /**
+     * 以数据库中的状态填充思维流（在交互流的通道上调用，或在思维流发布给其他线程之前调用）
+     * <p>
+     * 暂存的消息接在历史消息之后；载入前已收到消息时，状态取内存与数据库中较高者，上次活跃时间取较晚者
+     * （载入前收到消息只会将状态提升至激活，不应覆盖数据库中更高的状态）
+     *
+     * @param storedState         数据库中的交互流状态，为null表示交互流尚不存在
+     * @param lastActiveTimestamp 数据库中的上次活跃时间戳
+     * @param recentMessages      由旧到新排列的最近消息
+     */
+    void hydrate(FlowState storedState, long lastActiveTimestamp, List<MessageSnapshot> recentMessages) {
+        if (this.hydrated) {
+            return;
+        }
+
+        boolean receivedBeforeHydrate = this.pendingMessages != null;
+        // 暂存的消息可能已写入消息表，跳过重复的部分
+        if (!receivedBeforeHydrate) {
+            recentMessages.forEach(this.observationWindow::add);
+        } else {
+            var pendingKeys = new HashSet<Object>(this.pendingMessages.size() * 2);
+            for (var message : this.pendingMessages) {
+                pendingKeys.add(dedupKey(message));
+            }
+            for (var message : recentMessages) {
+                if (!pendingKeys.contains(dedupKey(message))) {
+                    this.observationWindow.add(message);
+                }
+            }
+            this.pendingMessages.forEach(this.observationWindow::add);
+            this.pendingMessages = null;
+        }
+
+        if (storedState != null) {
+            if (storedState.isAtLeast(this.state)) {
+                this.state = storedState;
+            }
+            this.lastActiveTimestamp = receivedBeforeHydrate
+                    ? Math.max(this.lastActiveTimestamp, lastActiveTimestamp)
+                    : lastActiveTimestamp;
+        }
+        this.hydrated = true;
+        if (this.dirty.get()) {
+            // 载入前产生的变化
+            this.flowCheckpointer.enqueue(this);
+        }
+    }
+
+    /**
+     * 消息去重键：有ID时使用ID，否则使用发送者与创建时间
+     */
+    private static Object dedupKey(MessageSnapshot message) {
+        if (message.id() != null) {
+            return message.id();
+        }
+        return Arrays.asList(message.senderId(), message.createdAt());
+    }
+
+    /**
+     * 丢弃尚未载入的思维流（交互流对应的群聊或私聊对象不存在时，在交互流的通道上调用）
+     * <p>
+     * 暂存的消息被丢弃，思维流不会被写回数据库
+     *
+     * @return 丢弃的消息数
+     */
+    int discard() {
+        int dropped = this.pendingMessages == null ? 0 : this.pendingMessages.size();
+        this.pendingMessages = null;
+        this.clearDirty();
+        this.flowObserver.stop();
+        return dropped;
+    }
+
+    /**
+     * 是否已超过指定时长没有新消息
+     *
+     * @param now       当前时间戳（毫秒）
+     * @param timeoutMs 时长（毫秒）
+     */
+    boolean isIdle(long now, long timeoutMs) {
+        return now - this.lastActiveTimestamp >= timeoutMs;
+    }
+
+    /**
+     * 获取观察窗口的快照
+     *
+     * @return 由旧到新排列的消息快照
+     */
+    public List<MessageSnapshot> getObservationWindow() {
+        return this.observationWindow.snapshot();
+    }
+
     /**
      * 流观察器
+     * <p>
+     * 不占用线程：处于激活或专注状态时，由 {@link ObservationScheduler} 按观察间隔在交互流的通道上触发单次观察；
+     * 进入休眠或停止后不再触发。同一时刻每个思维流至多有一个待触发或执行中的观察。<br>
+     * 除 running 外的状态只在交互流的通道上访问，无需加锁。
      */
     public static class FlowObserver implements Runnable {
         private final Logger log = LoggerFactory.getLogger(FlowObserver.class);
 
         private final ThinkingFlow thinkingFlow;
+        private final ObservationScheduler scheduler;
 
-        private final ReentrantLock lock = new ReentrantLock();
-        private final Condition activityCondition = lock.newCondition();
         private volatile boolean running = true;
+        /// 已有待触发或执行中的观察
+        private boolean armed = false;
+        /// 待触发观察的定时句柄（执行中为null）
+        private Timeout pendingTimeout;
 
         /// 交互流处于激活状态下的观察间隔
         @Setter
@@ -110,8 +288,9 @@ public class ThinkingFlow {
         @Setter
         private int focusedObservationIntervalSec = 5;
 
-        protected FlowObserver(ThinkingFlow flow) {
+        protected FlowObserver(ThinkingFlow flow, ObservationScheduler scheduler) {
             this.thinkingFlow = flow;
+            this.scheduler = scheduler;
         }
 
         /**
@@ -120,9 +299,9 @@ public class ThinkingFlow {
          * @param newState 新的交互流状态
          */
         public void onStateChange(FlowState newState) {
-            // 如果新的状态是激活或更高，发出信号以唤醒观察线程
+            // 如果新的状态是激活或更高，立即触发一次观察
             if (newState.isAtLeast(FlowState.ACTIVE)) {
-                this.signalObserver();
+                this.wake();
             }
         }
 
@@ -131,51 +310,64 @@ public class ThinkingFlow {
          */
         public void stop() {
             running = false;
-            this.signalObserver();
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel();
+                pendingTimeout = null;
+            }
         }
 
-        private void signalObserver() {
-            lock.lock();
-            try {
-                activityCondition.signal();
-            } finally {
-                lock.unlock();
+        /**
+         * 尽快触发一次观察（提前触发等待中的观察）
+         */
+        private void wake() {
+            if (!running) {
+                return;
+            }
+            if (armed) {
+                // 观察已在通道中排队，结束后会按新状态重新调度；等待中则提前触发
+                if (pendingTimeout != null && pendingTimeout.cancel()) {
+                    pendingTimeout = scheduler.schedule(thinkingFlow.id, this, 0);
+                    armed = pendingTimeout != null;
+                }
+                return;
             }
+            arm(0);
         }
 
-        @Override
-        public void run() {
-            while (running) {
-                // 如果流处于休眠状态，等待激活信号
-                try {
-                    lock.lock();
-                    while (thinkingFlow.getState() == FlowState.SLEEPING && running) {
-                        log.debug("ThinkingFlow {} is sleeping, waiting for activation...", thinkingFlow.id);
-                        activityCondition.await();
-                    }
-                    if (!running) break;
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    break;
-                } finally {
-                    lock.unlock();
-                }
+        private void arm(long delayMs) {
+            pendingTimeout = scheduler.schedule(thinkingFlow.id, this, delayMs);
+            // 调度器已关闭时为null
+            armed = pendingTimeout != null;
+        }
 
-                // 观察交互流内容并做出决策
-                // TODO: 实现观察逻辑
+        /**
+         * 按当前状态安排下一次观察
+         */
+        private void rearm() {
+            armed = false;
+            if (!running) {
+                return;
+            }
+            switch (thinkingFlow.getState()) {
+                case ACTIVE -> arm(TimeUnit.SECONDS.toMillis(activeObservationIntervalSec));
+                case FOCUSED -> arm(TimeUnit.SECONDS.toMillis(focusedObservationIntervalSec));
+                case SLEEPING -> log.debug("ThinkingFlow {} is sleeping, waiting for activation...", StreamKey.of(thinkingFlow.id));
+            }
+        }
 
-                try {
-                    lock.lock();
-                    var flowState = thinkingFlow.getState();
-                    switch (flowState) {
-                        case ACTIVE -> activityCondition.await(activeObservationIntervalSec, TimeUnit.SECONDS);
-                        case FOCUSED -> activityCondition.await(focusedObservationIntervalSec, TimeUnit.SECONDS);
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                } finally {
-                    lock.unlock();
+        /**
+         * 执行单次观察（由 {@link ObservationScheduler} 投递到交互流的通道上调用）
+         */
+        @Override
+        public void run() {
+            pendingTimeout = null;
+            try {
+                if (running && thinkingFlow.getState().isAtLeast(FlowState.ACTIVE)) {
+                    // 观察交互流内容并做出决策
+                    // TODO: 实现观察逻辑
                 }
+            } finally {
+                rearm();
             }
         }
     }
@@ -7,26 +7,38 @@ import org.maibot.core.cdi.annotation.Value;
 @ObjectFactory
 public class ThinkingFlowFactory {
     private final int observationWindowSize;
-
-    private String flowId;
+    private final FlowExecutor flowExecutor;
+    private final ObservationScheduler observationScheduler;
+    private final FlowCheckpointer flowCheckpointer;
 
     @AutoInject
     private ThinkingFlowFactory(
-            @Value("thinking.observation_window_size") int observationWindowSize
+            @Value("thinking.observation_window_size") int observationWindowSize,
+            FlowExecutor flowExecutor,
+            ObservationScheduler observationScheduler,
+            FlowCheckpointer flowCheckpointer
     ) {
         this.observationWindowSize = observationWindowSize;
+        this.flowExecutor = flowExecutor;
+        this.observationScheduler = observationScheduler;
+        this.flowCheckpointer = flowCheckpointer;
     }
 
-    public ThinkingFlowFactory setFlowId(String flowId) {
-        this.flowId = flowId;
-        return this;
-    }
-
-
-    public ThinkingFlow build() {
+    /**
+     * 创建思维流
+     * <p>
+     * 工厂为全局单例，会被恢复线程与各执行通道并发调用，因此不保存任何单次构建的状态
+     *
+     * @param flowId 交互流键
+     * @return 思维流
+     */
+    public ThinkingFlow build(long flowId) {
         return new ThinkingFlow(
                 this.observationWindowSize,
-                this.flowId
+                flowId,
+                this.flowExecutor,
+                this.observationScheduler,
+                this.flowCheckpointer
         );
     }
 }
@@ -1,20 +1,33 @@
 package org.maibot.core.thinking;
 
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import org.jctools.maps.NonBlockingHashMapLong;
 import org.maibot.core.cdi.Instance;
+import org.maibot.core.config.MainConfig;
 import org.maibot.core.db.DatabaseService;
 import org.maibot.core.db.dao.InteractionEntity;
 import org.maibot.core.db.dao.InteractionGroup;
 import org.maibot.core.db.dao.InteractionStream;
+import org.maibot.core.db.dao.Message;
 import org.maibot.core.cdi.annotation.AutoInject;
 import org.maibot.core.cdi.annotation.Component;
+import org.maibot.core.cdi.annotation.Value;
 import org.maibot.core.util.TaskExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 交互流管理器
@@ -29,135 +42,424 @@ import java.util.concurrent.ConcurrentHashMap;
  * 2. 活跃：当交互流中有成员在进行交流时，该流进入活跃状态；<br>
  * 3. 专注：当bot认为交互流中有值得关注的内容时，该流进入专注状态；<br>
  * 4. 休眠：当交互流中长时间没有活跃交流时，该流进入休眠状态；<br>
+ * 5. 回收：休眠更久的交互流从内存中移除（状态写回数据库），再次收到消息时自动载入。
  */
 @Component
 public class ThinkingFlowManager {
     private static final Logger log = LoggerFactory.getLogger(ThinkingFlowManager.class);
 
+    /// 休眠与回收检查的间隔（毫秒）
+    private static final long SWEEP_INTERVAL_MS = 30_000;
+    /// 恢复时每页读取的交互流数
+    private static final int RESTORE_PAGE_SIZE = 500;
+    /// 恢复时同时构建思维流的页数上限
+    private static final int RESTORE_PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    /// 每个交互流最近的 :n 条消息，按交互流、消息ID升序排列
+    private static final String RECENT_MESSAGES_SQL = """
+            SELECT stream_id, id, sender_entity_id, created_at
+            FROM (
+                SELECT m.stream_id, m.id, m.sender_entity_id, m.created_at,
+                       ROW_NUMBER() OVER (PARTITION BY m.stream_id ORDER BY m.id DESC) AS rn
+                FROM message m
+                WHERE m.stream_id IN (:ids)
+            )
+            WHERE rn <= :n
+            ORDER BY stream_id, id
+            """;
+
     /* 单例资源区 */
     private final DatabaseService databaseService;
     private final TaskExecutorService taskExecutorService;
+    private final FlowExecutor flowExecutor;
+    private final ObservationScheduler observationScheduler;
+    private final FlowCheckpointer flowCheckpointer;
+
+    /* 配置区 */
+    /// 观察窗口大小（载入时填充的最近消息数）
+    private final int observationWindowSize;
+    /// 无新消息多少毫秒后转入休眠
+    private final long sleepAfterMs;
+    /// 无新消息多少毫秒后回收，0表示不回收
+    private final long evictAfterMs;
 
     /* 运行资源区 */
-    /// 当前所有交互流
-    private final Map<String, ThinkingFlow> thinkingFlows = new ConcurrentHashMap<>();
+    /// 当前所有交互流（以压缩的交互流键为键，查找时不装箱）
+    private final NonBlockingHashMapLong<ThinkingFlow> thinkingFlows = new NonBlockingHashMapLong<>();
+    private volatile boolean running = true;
+    /// 后台恢复完成（无论成功与否），未开始恢复时视为已完成
+    private volatile CompletableFuture<Void> restoreComplete = CompletableFuture.completedFuture(null);
 
     @AutoInject
-    private ThinkingFlowManager(DatabaseService databaseService, TaskExecutorService taskExecutorService) {
+    private ThinkingFlowManager(
+            @Value("${thinking}") MainConfig.Thinking conf,
+            DatabaseService databaseService,
+            TaskExecutorService taskExecutorService,
+            FlowExecutor flowExecutor,
+            ObservationScheduler observationScheduler,
+            FlowCheckpointer flowCheckpointer
+    ) {
         this.databaseService = databaseService;
         this.taskExecutorService = taskExecutorService;
+        this.flowExecutor = flowExecutor;
+        this.observationScheduler = observationScheduler;
+        this.flowCheckpointer = flowCheckpointer;
+
+        this.observationWindowSize = conf.observationWindowSize;
+        this.sleepAfterMs = TimeUnit.SECONDS.toMillis(Objects.requireNonNullElse(conf.sleepAfter, 600));
+        this.evictAfterMs = TimeUnit.SECONDS.toMillis(Objects.requireNonNullElse(conf.evictAfter, 3600));
     }
 
     /**
      * 初始化思维流管理器
      */
     public void initialize() {
-        this.restoreFromDb();
-        this.runInteractionFlowObservers();
+        // 恢复在后台进行，不阻塞启动
+        this.restoreComplete = new CompletableFuture<>();
+        this.taskExecutorService.submit(this::restoreFromDb, false);
+        this.scheduleSweep();
+        this.flowCheckpointer.start();
     }
 
     /**
      * 关闭思维流管理器
      */
     public void shutdown() {
+        this.running = false;
+        // 恢复在读完当前页后停止，等待其结束，避免执行器关闭后仍有交互流被加入
+        try {
+            this.restoreComplete.get(10, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("等待交互流恢复结束超时");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // 恢复失败已在恢复过程中记录
+        }
+        this.observationScheduler.shutdown();
         for (var flow : this.thinkingFlows.values()) {
             flow.stopObserving();
         }
-        this.saveToDb();
-    }
-
-    /**
-     * 保存当前状态到数据库
-     */
-    private void saveToDb() {
-        databaseService.exec(em -> {
-            for (var flow : this.thinkingFlows.values()) {
-                // TODO: 将Flow同步到数据库
-            }
-        });
+        // 等待各通道中已投递的消息处理完毕
+        this.flowExecutor.shutdown(10, TimeUnit.SECONDS);
+        // 只写回自上次检查点以来变化的交互流
+        try {
+            this.flowCheckpointer.stop();
+        } catch (Exception e) {
+            log.error("Failed to save interaction streams to database.", e);
+        }
     }
 
     /**
      * 从数据库恢复状态
+     * <p>
+     * 只恢复未休眠的交互流，休眠的交互流在收到消息时由 {@link #getOrCreateInteractionFlow} 载入。<br>
+     * 按交互流键分页读取（键集分页），每页的观察窗口用一次窗口函数查询填充；
+     * 数据库只有一个连接，读取在当前线程依次进行，读完一页即交由执行器构建思维流并继续读取下一页，
+     * 同时构建中的页数不超过 {@link #RESTORE_PARALLELISM}。<br>
+     * 恢复在后台进行，期间收到消息的交互流由 {@link #getOrCreateInteractionFlow} 直接载入，恢复时不覆盖。
      */
     private void restoreFromDb() {
+        long startTime = System.currentTimeMillis();
+        var restoredCount = new AtomicInteger();
+        var inFlight = new Semaphore(RESTORE_PARALLELISM);
         try {
-            databaseService.exec(em -> {
-                CriteriaBuilder cb = em.getCriteriaBuilder();
-                var cq = cb.createQuery(InteractionStream.class);
-                var root = cq.from(InteractionStream.class);
-                cq.select(root);
-                var query = em.createQuery(cq);
-                List<InteractionStream> streams = query.getResultList();
-
-                for (var stream : streams) {
-                    String streamId = stream.getId();
-                    var flow = Instance.get(ThinkingFlowFactory.class)
-                            .setFlowId(streamId)
-                            .build();
-                    thinkingFlows.put(streamId, flow);
+            Long lastId = null;
+            while (this.running) {
+                final Long afterId = lastId;
+                StoredPage page = databaseService.exec(em -> readPage(em, afterId));
+                if (page.streams().isEmpty()) {
+                    break;
                 }
 
-                // TODO: 从数据库取聊天消息填充观察窗口
-            });
+                inFlight.acquire();
+                this.taskExecutorService.submit(() -> {
+                    try {
+                        restoredCount.addAndGet(installPage(page));
+                    } finally {
+                        inFlight.release();
+                    }
+                }, false);
+
+                if (page.streams().size() < RESTORE_PAGE_SIZE) {
+                    break;
+                }
+                lastId = page.streams().getLast().getId();
+            }
+            // 等待所有已交出的页构建完毕
+            inFlight.acquire(RESTORE_PARALLELISM);
+            log.info("已恢复 {} 个交互流，用时 {}ms", restoredCount.get(), System.currentTimeMillis() - startTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Failed to restore interaction streams from database.", e);
+        } finally {
+            this.restoreComplete.complete(null);
         }
     }
 
     /**
-     * 运行所有交互流的观察者
+     * 一页未休眠的交互流
+     *
+     * @param streams 按交互流键排列的交互流
+     * @param windows 交互流键 -> 由旧到新排列的最近消息
      */
-    private void runInteractionFlowObservers() {
-        for (var flow : this.thinkingFlows.values()) {
-            if (flow.getState().isAtLeast(ThinkingFlow.FlowState.ACTIVE))
-                this.taskExecutorService.submit(flow::observe, true);
+    private record StoredPage(List<InteractionStream> streams, Map<Long, List<MessageSnapshot>> windows) {
+    }
+
+    /**
+     * 读取一页未休眠的交互流及其最近消息
+     *
+     * @param em      EntityManager
+     * @param afterId 上一页最后的交互流键，第一页为null
+     */
+    private StoredPage readPage(EntityManager em, Long afterId) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        var cq = cb.createQuery(InteractionStream.class);
+        var root = cq.from(InteractionStream.class);
+        var active = cb.greaterThanOrEqualTo(root.<Integer>get("state"), ThinkingFlow.FlowState.ACTIVE.getCode());
+        cq.select(root)
+                .where(afterId == null ? active : cb.and(active, cb.greaterThan(root.<Long>get("id"), afterId)))
+                .orderBy(cb.asc(root.get("id")));
+        List<InteractionStream> streams = em.createQuery(cq).setMaxResults(RESTORE_PAGE_SIZE).getResultList();
+        if (streams.isEmpty()) {
+            return new StoredPage(List.of(), Map.of());
         }
+        return new StoredPage(streams, loadRecentMessages(em, streams.stream().map(InteractionStream::getId).toList()));
     }
 
     /**
-     * 通过用户ID获取或创建一个思维流
+     * 构建一页思维流并加入内存，已由消息载入的交互流不覆盖
      *
-     * @param streamId 流ID
-     * @return 交互流实例
+     * @return 加入的思维流数
      */
-    public ThinkingFlow getOrCreateInteractionFlow(String streamId) {
-        return thinkingFlows.computeIfAbsent(streamId, k -> {
-            assert streamId.matches("^([PG])-\\d+$");
-            String[] parts = streamId.split("-");
-
-            // 持久化
-            databaseService.exec(em -> {
-                InteractionStream stream = new InteractionStream();
-                stream.setId(streamId);
-
-                if (parts[0].equals("P")) {
-                    // 私聊流
-                    Long userId = Long.parseLong(parts[1]);
-                    // 在数据库中查询对应的私聊对象是否存在
-                    var res = em.find(InteractionEntity.class, userId);
-                    if (res == null) {
-                        throw new RuntimeException("InteractionEntity with ID " + userId + " does not exist. This shouldn't happen.");
-                    }
-                    stream.setEntity(res);
-                } else if (parts[0].equals("G")) {
-                    // 群聊流
-                    Long groupId = Long.parseLong(parts[1]);
-                    // 在数据库中查询对应的群聊对象是否存在
-                    var res = em.find(InteractionGroup.class, groupId);
-                    if (res == null) {
-                        throw new RuntimeException("InteractionGroup with ID " + groupId + " does not exist. This shouldn't happen.");
+    private int installPage(StoredPage page) {
+        int installed = 0;
+        for (var stream : page.streams()) {
+            var flow = buildFlow(stream, page.windows().getOrDefault(stream.getId(), List.of()));
+            if (this.thinkingFlows.putIfAbsent(flow.getId(), flow) == null) {
+                flow.observe();
+                installed++;
+            }
+        }
+        return installed;
+    }
+
+    private ThinkingFlow buildFlow(InteractionStream stream, List<MessageSnapshot> recentMessages) {
+        var flow = newFlow(stream.getId());
+        flow.hydrate(
+                ThinkingFlow.FlowState.of(stream.getState()),
+                Objects.requireNonNullElse(stream.getLastActiveAt(), System.currentTimeMillis()),
+                recentMessages
+        );
+        return flow;
+    }
+
+    private ThinkingFlow newFlow(long streamKey) {
+        return Instance.get(ThinkingFlowFactory.class).build(streamKey);
+    }
+
+    /**
+     * 数据库中的交互流状态
+     *
+     * @param state               交互流状态
+     * @param lastActiveTimestamp 上次活跃时间戳
+     * @param recentMessages      由旧到新排列的最近消息
+     */
+    private record StoredFlow(ThinkingFlow.FlowState state, long lastActiveTimestamp, List<MessageSnapshot> recentMessages) {
+    }
+
+    /// 载入结果：交互流对应的群聊或私聊对象不存在
+    private static final StoredFlow UNKNOWN_STREAM = new StoredFlow(null, 0, List.of());
+
+    /**
+     * 异步从数据库载入交互流的状态与最近消息，完成后在交互流的通道上填充思维流
+     * <p>
+     * - 交互流不存在但对应的群聊或私聊对象存在时视为新建，由 {@link FlowCheckpointer} 在下次检查点写入数据库<br>
+     * - 对应的对象也不存在时移除占位的思维流并丢弃暂存的消息
+     *
+     * @param flow 尚未载入的思维流
+     */
+    private void loadAsync(ThinkingFlow flow) {
+        var streamKey = flow.getId();
+        databaseService.execAsync(em -> {
+            var stream = em.find(InteractionStream.class, streamKey);
+            if (stream == null) {
+                return ownerExists(em, StreamKey.of(streamKey)) ? null : UNKNOWN_STREAM;
+            }
+            return new StoredFlow(
+                    ThinkingFlow.FlowState.of(stream.getState()),
+                    Objects.requireNonNullElse(stream.getLastActiveAt(), System.currentTimeMillis()),
+                    loadRecentMessages(em, List.of(streamKey)).getOrDefault(streamKey, List.of())
+            );
+        }).whenComplete((stored, e) -> this.flowExecutor.execute(streamKey, () -> {
+            if (e != null) {
+                log.error("Failed to load interaction stream {} from database.", StreamKey.of(streamKey), e);
+                flow.hydrate(null, 0, List.of());
+            } else if (stored == UNKNOWN_STREAM) {
+                this.thinkingFlows.remove(streamKey, flow);
+                int dropped = flow.discard();
+                log.warn("交互流 {} 对应的群聊或私聊对象不存在，丢弃 {} 条消息", StreamKey.of(streamKey), dropped);
+                return;
+            } else if (stored == null) {
+                flow.hydrate(null, 0, List.of());
+                // 新的交互流，等待写入数据库
+                flow.markDirty();
+            } else {
+                flow.hydrate(stored.state(), stored.lastActiveTimestamp(), stored.recentMessages());
+            }
+            flow.observe();
+        }));
+    }
+
+    /**
+     * 交互流对应的群聊或私聊对象是否存在
+     *
+     * @param em  EntityManager
+     * @param key 交互流键
+     */
+    private static boolean ownerExists(EntityManager em, StreamKey key) {
+        var owner = key.isPrivate()
+                ? em.find(InteractionEntity.class, key.id())
+                : em.find(InteractionGroup.class, key.id());
+        return owner != null;
+    }
+
+    /**
+     * 查询多个交互流各自最近的消息（一次查询，每个交互流至多 observation_window_size 条）
+     *
+     * @param em        EntityManager
+     * @param streamKeys 交互流键
+     * @return 交互流键 -> 由旧到新排列的消息快照
+     */
+    private Map<Long, List<MessageSnapshot>> loadRecentMessages(EntityManager em, List<Long> streamKeys) {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = em.createNativeQuery(RECENT_MESSAGES_SQL)
+                .setParameter("ids", streamKeys)
+                .setParameter("n", this.observationWindowSize)
+                .getResultList();
+
+        long now = System.currentTimeMillis();
+        var windows = new HashMap<Long, List<MessageSnapshot>>();
+        for (var row : rows) {
+            var snapshot = new MessageSnapshot(
+                    ((Number) row[1]).longValue(),
+                    row[2] == null ? null : ((Number) row[2]).longValue(),
+                    (String) row[3],
+                    now
+            );
+            windows.computeIfAbsent(((Number) row[0]).longValue(), k -> new ArrayList<>()).add(snapshot);
+        }
+        return windows;
+    }
+
+    private void scheduleSweep() {
+        if (this.running) {
+            this.observationScheduler.schedule(this::sweep, SWEEP_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * 休眠与回收检查
+     * <p>
+     * - 超过 sleep_after 没有新消息的交互流转入休眠<br>
+     * - 超过 evict_after 没有新消息的休眠交互流从内存中移除，状态由 {@link FlowCheckpointer} 写回数据库
+     * <p>
+     * 状态变更与回收投递到交互流的通道上执行，与该交互流的消息处理互不交错
+     */
+    private void sweep() {
+        try {
+            long now = System.currentTimeMillis();
+            for (var flow : this.thinkingFlows.values()) {
+                if (flow.getState() != ThinkingFlow.FlowState.SLEEPING) {
+                    if (flow.isIdle(now, this.sleepAfterMs)) {
+                        this.flowExecutor.execute(flow.getId(), () -> this.demote(flow));
                     }
-                    stream.setGroup(res);
+                } else if (this.evictAfterMs > 0 && flow.isIdle(now, this.evictAfterMs)) {
+                    this.flowExecutor.execute(flow.getId(), () -> this.evict(flow));
                 }
+            }
+        } catch (Exception e) {
+            log.error("交互流休眠与回收检查失败", e);
+        } finally {
+            this.scheduleSweep();
+        }
+    }
+
+    private void demote(ThinkingFlow flow) {
+        // 排队期间可能收到了新消息，再次确认
+        if (flow.getState() != ThinkingFlow.FlowState.SLEEPING && flow.isIdle(System.currentTimeMillis(), this.sleepAfterMs)) {
+            flow.setState(ThinkingFlow.FlowState.SLEEPING);
+        }
+    }
+
+    private void evict(ThinkingFlow flow) {
+        if (flow.getState() != ThinkingFlow.FlowState.SLEEPING || !flow.isIdle(System.currentTimeMillis(), this.evictAfterMs)) {
+            return;
+        }
+        if (this.thinkingFlows.remove(flow.getId(), flow)) {
+            flow.stopObserving();
+            // 确保回收前的最终状态被写回
+            flow.markDirty();
+            log.trace("回收休眠的交互流 {}，当前交互流数: {}", StreamKey.of(flow.getId()), this.thinkingFlows.size());
+        }
+    }
+
+    /**
+     * 将消息投递给交互流（在交互流所属的通道上加入观察窗口）
+     * <p>
+     * 同一交互流的消息按投递顺序处理；交互流不在内存中时先载入或创建
+     *
+     * @param streamKey 交互流键
+     * @param message   消息
+     */
+    public void dispatchMessage(long streamKey, Message message) {
+        this.flowExecutor.execute(streamKey, () -> getOrCreateInteractionFlow(streamKey).addToObservationWindow(message));
+    }
+
+    /**
+     * 将消息投递给交互流
+     *
+     * @param streamId 交互流ID（如 <code>G-123</code>）
+     * @param message  消息
+     * @throws IllegalArgumentException 流ID格式不正确
+     */
+    public void dispatchMessage(String streamId, Message message) {
+        dispatchMessage(StreamKey.parseKey(streamId), message);
+    }
+
+    /**
+     * 通过用户ID获取或创建一个思维流
+     * <p>
+     * 不在内存中的交互流立即以空的思维流占位并返回，随后异步从数据库载入（已被回收的交互流）或在下次检查点写入数据库（新的交互流）；
+     * 载入完成前收到的消息暂存在思维流中，载入后接在历史消息之后。对应的群聊或私聊对象不存在时，占位的思维流在载入后被移除
+     *
+     * @param streamKey 交互流键（见 {@link StreamKey}）
+     * @return 交互流实例
+     */
+    public ThinkingFlow getOrCreateInteractionFlow(long streamKey) {
+        var flow = thinkingFlows.get(streamKey);
+        if (flow != null) {
+            return flow;
+        }
 
-                em.persist(stream);
-            });
+        var created = newFlow(streamKey);
+        var existing = thinkingFlows.putIfAbsent(streamKey, created);
+        if (existing != null) {
+            return existing;
+        }
+        loadAsync(created);
+        return created;
+    }
 
-            return Instance.get(ThinkingFlowFactory.class)
-                    .setFlowId(streamId)
-                    .build();
-        });
+    /**
+     * 通过流ID获取或创建一个思维流
+     *
+     * @param streamId 流ID（如 <code>G-123</code>）
+     * @return 交互流实例
+     * @throws IllegalArgumentException 流ID格式不正确
+     */
+    public ThinkingFlow getOrCreateInteractionFlow(String streamId) {
+        return getOrCreateInteractionFlow(StreamKey.parseKey(streamId));
     }
 
     public int[] getFlowStatesCount() {
@@ -0,0 +1,84 @@
+package org.maibot.core.util;
+
+import org.maibot.core.cdi.annotation.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 指标来源注册表
+ * <p>
+ * 各模块在构造时注册自身的指标来源，指标导出（如 <code>/metrics</code>）时依次追加，
+ * 导出方因此无需依赖各模块的具体类型。
+ */
+@Component
+public class MetricsRegistry {
+    /**
+     * 指标来源
+     */
+    @FunctionalInterface
+    public interface Source {
+        /**
+         * 以Prometheus文本格式追加指标
+         *
+         * @param sb 输出
+         */
+        void writePrometheus(StringBuilder sb);
+    }
+
+    private final List<Source> sources = new CopyOnWriteArrayList<>();
+
+    /**
+     * 注册一个指标来源
+     *
+     * @param source 指标来源
+     */
+    public void register(Source source) {
+        sources.add(source);
+    }
+
+    /**
+     * 以Prometheus文本格式追加全部已注册来源的指标
+     *
+     * @param sb 输出
+     */
+    public void writePrometheus(StringBuilder sb) {
+        for (var source : sources) {
+            source.writePrometheus(sb);
+        }
+    }
+
+    /**
+     * 追加指标的 HELP 与 TYPE 行
+     */
+    public static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * 追加一个样本，整数值不带小数部分
+     *
+     * @param labels 已格式化的标签（不含花括号），为空字符串时不输出标签
+     */
+    public static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 转义标签值
+     */
+    public static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
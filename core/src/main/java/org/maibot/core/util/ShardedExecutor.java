@@ -0,0 +1,152 @@
+package org.maibot.core.util;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分片执行器
+ * <p>
+ * 由若干条单线程的执行通道（lane）组成，任务按键的哈希值分配到固定的通道：<br>
+ * - 相同键的任务在同一线程上按提交顺序串行执行，无需加锁<br>
+ * - 不同键的任务分散在各通道上并行执行
+ */
+public class ShardedExecutor {
+    private static final Logger log = LoggerFactory.getLogger(ShardedExecutor.class);
+
+    private final ThreadPoolExecutor[] lanes;
+
+    /**
+     * @param name      线程名前缀
+     * @param laneCount 通道数
+     */
+    public ShardedExecutor(String name, int laneCount) {
+        if (laneCount <= 0) {
+            throw new IllegalArgumentException("Lane count must be positive");
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int idx = 0; idx < laneCount; idx++) {
+            this.lanes[idx] = new ThreadPoolExecutor(
+                    1,
+                    1,
+                    0L,
+                    TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(),
+                    new DefaultThreadFactory(name + "-" + idx)
+            );
+        }
+    }
+
+    /**
+     * 键所属的通道序号
+     *
+     * @param key 键
+     * @return 通道序号
+     */
+    public int laneOf(Object key) {
+        return spread(key.hashCode());
+    }
+
+    /**
+     * 键所属的通道序号
+     *
+     * @param key 键
+     * @return 通道序号
+     */
+    public int laneOf(long key) {
+        return spread(Long.hashCode(key));
+    }
+
+    private int spread(int hash) {
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    /**
+     * 在键所属的通道上执行任务
+     *
+     * @param key  键
+     * @param task 任务
+     * @throws RejectedExecutionException 执行器已关闭
+     */
+    public void execute(Object key, Runnable task) {
+        executeOnLane(laneOf(key), task);
+    }
+
+    /**
+     * 在键所属的通道上执行任务（基本类型键，避免装箱）
+     *
+     * @param key  键
+     * @param task 任务
+     * @throws RejectedExecutionException 执行器已关闭
+     */
+    public void execute(long key, Runnable task) {
+        executeOnLane(laneOf(key), task);
+    }
+
+    private void executeOnLane(int lane, Runnable task) {
+        lanes[lane].execute(() -> {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                // 包括Error：不让异常终止通道线程，后续任务继续按序执行
+                log.error("An uncaught exception occurred while executing a task", e);
+            }
+        });
+    }
+
+    /// 通道数
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * 各通道排队中的任务数
+     *
+     * @return 按通道序号排列的队列深度
+     */
+    public int[] getQueueDepths() {
+        var depths = new int[lanes.length];
+        for (int idx = 0; idx < lanes.length; idx++) {
+            depths[idx] = lanes[idx].getQueue().size();
+        }
+        return depths;
+    }
+
+    /**
+     * 各通道累计完成的任务数
+     *
+     * @return 按通道序号排列的完成数
+     */
+    public long[] getCompletedTaskCounts() {
+        var counts = new long[lanes.length];
+        for (int idx = 0; idx < lanes.length; idx++) {
+            counts[idx] = lanes[idx].getCompletedTaskCount();
+        }
+        return counts;
+    }
+
+    /**
+     * 关闭执行器：不再接受新任务，等待已提交的任务执行完毕
+     *
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     * @return 是否在超时前全部完成
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (var lane : lanes) {
+            lane.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (var lane : lanes) {
+            if (!lane.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
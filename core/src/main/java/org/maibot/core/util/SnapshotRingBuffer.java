@@ -0,0 +1,90 @@
+package org.maibot.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单写者的定长环形缓冲区
+ * <p>
+ * - 只允许一个线程写入（{@link #add}），写满后覆盖最旧的元素，内存占用恒定<br>
+ * - 任意线程可无锁读取快照（{@link #snapshot()}），读取不会阻塞写入，也不会读到被覆盖了一半的内容<br>
+ * - 元素应当是不可变的
+ * <p>
+ * 每个槽位记录写入时的序号，读取时按序号校验：读取过程中被写者覆盖的槽位连同更旧的元素一起丢弃，
+ * 因此快照总是最近写入的元素中连续、有序的一段。
+ *
+ * @param <T> 元素类型
+ */
+public class SnapshotRingBuffer<T> {
+    private record Slot<T>(long seq, T value) {
+    }
+
+    private final int capacity;
+    private final AtomicReferenceArray<Slot<T>> slots;
+    /// 已写入的元素总数（下一个元素的序号）
+    private volatile long head = 0;
+
+    /**
+     * @param capacity 容量（保留最近写入的元素数）
+     */
+    public SnapshotRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * 写入一个元素（仅限唯一的写者线程调用）
+     *
+     * @param value 元素
+     */
+    public void add(T value) {
+        long seq = head;
+        slots.setRelease((int) (seq % capacity), new Slot<>(seq, value));
+        head = seq + 1;
+    }
+
+    /**
+     * 读取当前内容的快照
+     *
+     * @return 由旧到新排列的不可变列表
+     */
+    public List<T> snapshot() {
+        long end = head;
+        long start = Math.max(0, end - capacity);
+        var result = new ArrayList<T>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            var slot = slots.getAcquire((int) (seq % capacity));
+            if (slot.seq() != seq) {
+                // 已被写者覆盖，此前读到的元素更旧，一并丢弃
+                result.clear();
+                continue;
+            }
+            result.add(slot.value());
+        }
+        return List.copyOf(result);
+    }
+
+    /**
+     * 最近写入的元素
+     *
+     * @return 元素，缓冲区为空时返回null
+     */
+    public T latest() {
+        long end = head;
+        return end == 0 ? null : slots.getAcquire((int) ((end - 1) % capacity)).value();
+    }
+
+    /// 当前保留的元素数
+    public int size() {
+        return (int) Math.min(head, capacity);
+    }
+
+    /// 容量
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,62 @@
+package org.maibot.core.util;
+
+/**
+ * 令牌桶
+ * <p>
+ * 令牌以固定速率补充，桶中最多保留 burst 个令牌。提供两种取用方式：<br>
+ * - {@link #tryAcquire()}：令牌不足时拒绝<br>
+ * - {@link #reserve()}：总是取用（允许有上限的透支），返回需要等待的时间，供调用方施加背压
+ */
+public class TokenBucket {
+    private final double permitsPerNano;
+    private final double capacity;
+
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond 每秒补充的令牌数
+     * @param burst            桶容量（允许的突发量）
+     */
+    public TokenBucket(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000d;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+
+    /**
+     * 尝试取用一个令牌
+     *
+     * @return 是否取得
+     */
+    public synchronized boolean tryAcquire() {
+        refill(System.nanoTime());
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 取用一个令牌，令牌不足时透支
+     * <p>
+     * 透支至多一个桶容量，超出部分不再累计，等待时间因此不超过 burst / permitsPerSecond
+     *
+     * @return 令牌恢复为非负前需要等待的纳秒数，无需等待时为0
+     */
+    public synchronized long reserve() {
+        refill(System.nanoTime());
+        tokens = Math.max(tokens - 1, -capacity);
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
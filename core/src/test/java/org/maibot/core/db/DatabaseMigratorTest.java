@@ -0,0 +1,99 @@
+package org.maibot.core.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.semver4j.Semver;
+
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseMigratorTest {
+    @Test
+    void retypeColumnsKeepsConstraints() {
+        var sql = "CREATE TABLE message (id integer primary key, "
+                + "stream_id varchar(255) not null references interaction_stream (id) on delete cascade, content text)";
+        assertEquals(
+                "(id integer primary key, "
+                        + "stream_id bigint not null references interaction_stream (id) on delete cascade, content text)",
+                DatabaseMigrator.retypeColumns(sql, Set.of("stream_id"), "bigint")
+        );
+    }
+
+    @Test
+    void retypeColumnsHandlesQuotesAndComments() {
+        var sql = "CREATE TABLE \"t\" (\"id\" TEXT PRIMARY KEY, /* a, b */ \"name\" TEXT, UNIQUE (id, name)) STRICT";
+        assertEquals(
+                "(\"id\" bigint PRIMARY KEY, /* a, b */ \"name\" TEXT, UNIQUE (id, name)) STRICT",
+                DatabaseMigrator.retypeColumns(sql, Set.of("ID"), "bigint")
+        );
+        // 没有类型的列
+        assertEquals("(a bigint, b)", DatabaseMigrator.retypeColumns("CREATE TABLE t (a, b)", Set.of("a"), "bigint"));
+    }
+
+    @Test
+    void retypeColumnsRejectsMalformedStatement() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DatabaseMigrator.retypeColumns("CREATE TABLE t (a int", Set.of("a"), "bigint"));
+    }
+
+    @Test
+    void packStreamKeys(@TempDir Path dir) throws SQLException {
+        var jdbcUrl = "jdbc:sqlite:" + dir.resolve("test.db");
+        try (var conn = DriverManager.getConnection(jdbcUrl); var stmt = conn.createStatement()) {
+            stmt.executeUpdate("CREATE TABLE db_version (id integer primary key, version varchar(255))");
+            stmt.executeUpdate("INSERT INTO db_version VALUES (0, '0.1.0')");
+            stmt.executeUpdate("CREATE TABLE interaction_stream (id varchar(255) not null primary key, state integer)");
+            stmt.executeUpdate("CREATE TABLE message (id integer primary key, "
+                    + "stream_id varchar(255) references interaction_stream (id) on delete cascade, content text)");
+            stmt.executeUpdate("CREATE INDEX idx_message_stream ON message (stream_id)");
+            stmt.executeUpdate("INSERT INTO interaction_stream VALUES ('G-123', 1), ('P-456', 0)");
+            stmt.executeUpdate("INSERT INTO message VALUES (1, 'G-123', 'hello'), (2, 'P-456', 'world')");
+        }
+
+        DatabaseMigrator.migrate(jdbcUrl, new Semver("0.2.0"));
+
+        try (var conn = DriverManager.getConnection(jdbcUrl); var stmt = conn.createStatement()) {
+            try (var rs = stmt.executeQuery("SELECT version FROM db_version WHERE id = 0")) {
+                assertTrue(rs.next());
+                assertEquals("0.2.0", rs.getString(1));
+            }
+            try (var rs = stmt.executeQuery("SELECT id, state FROM interaction_stream ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals(246, rs.getLong(1));
+                assertEquals(1, rs.getInt(2));
+                assertTrue(rs.next());
+                assertEquals(913, rs.getLong(1));
+                assertFalse(rs.next());
+            }
+            try (var rs = stmt.executeQuery("SELECT stream_id, content FROM message ORDER BY id")) {
+                assertTrue(rs.next());
+                assertEquals(246, rs.getLong(1));
+                assertEquals("hello", rs.getString(2));
+                assertTrue(rs.next());
+                assertEquals(913, rs.getLong(1));
+            }
+            try (var rs = stmt.executeQuery("SELECT sql FROM sqlite_master WHERE name = 'message'")) {
+                assertTrue(rs.next());
+                assertTrue(rs.getString(1).contains("stream_id bigint references interaction_stream (id) on delete cascade"));
+            }
+            try (var rs = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type = 'index' AND name = 'idx_message_stream'")) {
+                assertTrue(rs.next());
+            }
+        }
+    }
+
+    @Test
+    void newDatabaseIsLeftAlone(@TempDir Path dir) throws SQLException {
+        var jdbcUrl = "jdbc:sqlite:" + dir.resolve("empty.db");
+        DatabaseMigrator.migrate(jdbcUrl, new Semver("0.2.0"));
+        try (var conn = DriverManager.getConnection(jdbcUrl); var stmt = conn.createStatement();
+             var rs = stmt.executeQuery("SELECT count(*) FROM sqlite_master")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.maibot.core.net;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.*;
+import org.junit.jupiter.api.Test;
+import org.maibot.sdk.network.HttpProcessor;
+import org.maibot.sdk.network.HttpRequestProcessor;
+import org.maibot.sdk.network.StreamingHttpRequestProcessor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpRouterTest {
+    private static final class Plain extends HttpRequestProcessor {
+        Plain(HttpMethod method, String path) {
+            super(method, path, Plain.class);
+        }
+
+        @Override
+        public HttpResponse handleRequest(FullHttpRequest req) {
+            return new DefaultFullHttpResponse(req.protocolVersion(), HttpResponseStatus.OK);
+        }
+    }
+
+    private static final class Upload extends StreamingHttpRequestProcessor {
+        Upload(HttpMethod method, String path) {
+            super(method, path, Upload.class);
+        }
+
+        @Override
+        public BodyReceiver onRequest(ChannelHandlerContext ctx, HttpRequest req, Map<String, String> pathParams) {
+            return null;
+        }
+    }
+
+    private static HttpRouter router(HttpProcessor... processors) {
+        return HttpRouter.build(List.of(processors));
+    }
+
+    @Test
+    void staticRoute() {
+        var ping = new Plain(HttpMethod.GET, "/api/ping");
+        var root = new Plain(HttpMethod.GET, "/");
+        var router = router(ping, root);
+
+        var match = router.route(HttpMethod.GET, "/api/ping");
+        assertSame(ping, match.processor());
+        assertTrue(match.pathParams().isEmpty());
+        assertSame(root, router.route(HttpMethod.GET, "/").processor());
+        assertSame(HttpRouter.NOT_FOUND, router.route(HttpMethod.GET, "/api/pong"));
+        assertSame(HttpRouter.NOT_FOUND, router.route(HttpMethod.GET, "/api"));
+    }
+
+    @Test
+    void pathParams() {
+        var message = new Plain(HttpMethod.GET, "/stream/{id}/message/{seq}");
+        var router = router(message);
+
+        var match = router.route(HttpMethod.GET, "/stream/G-123/message/7");
+        assertSame(message, match.processor());
+        assertEquals(Map.of("id", "G-123", "seq", "7"), match.pathParams());
+        // 参数段不匹配空段
+        assertFalse(router.route(HttpMethod.GET, "/stream//message/7").found());
+    }
+
+    @Test
+    void staticTakesPrecedenceAndBacktracks() {
+        var latest = new Plain(HttpMethod.GET, "/stream/latest");
+        var byId = new Plain(HttpMethod.GET, "/stream/{id}");
+        var history = new Plain(HttpMethod.GET, "/stream/{id}/history");
+        var router = router(latest, byId, history);
+
+        assertSame(latest, router.route(HttpMethod.GET, "/stream/latest").processor());
+        assertSame(byId, router.route(HttpMethod.GET, "/stream/P-1").processor());
+
+        // 静态段 latest 下没有 history，回溯到参数段
+        var match = router.route(HttpMethod.GET, "/stream/latest/history");
+        assertSame(history, match.processor());
+        assertEquals(Map.of("id", "latest"), match.pathParams());
+    }
+
+    @Test
+    void wildcard() {
+        var files = new Plain(HttpMethod.GET, "/files/*");
+        var router = router(files);
+
+        var match = router.route(HttpMethod.GET, "/files/a/b/c.png");
+        assertSame(files, match.processor());
+        assertEquals(Map.of("*", "a/b/c.png"), match.pathParams());
+        assertEquals(Map.of("*", ""), router.route(HttpMethod.GET, "/files/").pathParams());
+        assertSame(HttpRouter.NOT_FOUND, router.route(HttpMethod.GET, "/other/a"));
+    }
+
+    @Test
+    void methodNotAllowed() {
+        var router = router(
+                new Plain(HttpMethod.GET, "/stream/{id}"),
+                new Plain(HttpMethod.DELETE, "/stream/{id}")
+        );
+
+        var match = router.route(HttpMethod.POST, "/stream/G-1");
+        assertFalse(match.found());
+        assertTrue(match.methodNotAllowed());
+        assertEquals("DELETE, GET", match.allowedMethods());
+        assertFalse(HttpRouter.NOT_FOUND.methodNotAllowed());
+    }
+
+    @Test
+    void routeStreaming() {
+        var upload = new Upload(HttpMethod.POST, "/upload/{name}");
+        var plain = new Plain(HttpMethod.POST, "/message/{id}");
+        var router = router(upload, plain);
+
+        var match = router.routeStreaming(HttpMethod.POST, "/upload/a.png");
+        assertNotNull(match);
+        assertSame(upload, match.processor());
+        assertEquals(Map.of("name", "a.png"), match.pathParams());
+        assertNull(router.routeStreaming(HttpMethod.POST, "/message/1"));
+        assertNull(router.routeStreaming(HttpMethod.GET, "/upload/a.png"));
+        assertNull(router(plain).routeStreaming(HttpMethod.POST, "/message/1"));
+    }
+
+    @Test
+    void invalidPatterns() {
+        assertThrows(IllegalArgumentException.class, () -> router(new Plain(HttpMethod.GET, "api")));
+        assertThrows(IllegalArgumentException.class, () -> router(new Plain(HttpMethod.GET, "/files/*/x")));
+        assertThrows(IllegalArgumentException.class, () -> router(
+                new Plain(HttpMethod.GET, "/stream/{id}"),
+                new Plain(HttpMethod.POST, "/stream/{key}")
+        ));
+    }
+
+    @Test
+    void pathOf() {
+        assertEquals("/api/ping", HttpRouter.pathOf("/api/ping"));
+        assertEquals("/api/ping", HttpRouter.pathOf("/api/ping?x=1"));
+        assertEquals("/files/a b", HttpRouter.pathOf("/files/a%20b?x=1"));
+    }
+}
@@ -0,0 +1,32 @@
+package org.maibot.core.thinking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamKeyTest {
+    @Test
+    void parse() {
+        assertEquals(new StreamKey(123, false), StreamKey.parse("G-123"));
+        assertEquals(new StreamKey(456, true), StreamKey.parse("P-456"));
+        assertEquals(123L << 1, StreamKey.parseKey("G-123"));
+        assertEquals((456L << 1) | 1, StreamKey.parseKey("P-456"));
+    }
+
+    @Test
+    void roundTrip() {
+        for (var streamId : new String[]{"G-0", "P-0", "G-1", "P-987654321", "G-" + (Long.MAX_VALUE >>> 1)}) {
+            var key = StreamKey.parseKey(streamId);
+            assertEquals(streamId, StreamKey.of(key).toStreamId());
+            assertEquals(key, StreamKey.of(key).packed());
+        }
+    }
+
+    @Test
+    void rejectsInvalidIds() {
+        for (var streamId : new String[]{"", "G", "G-", "G123", "X-1", "G-1a", "G--1", "P- 1", "G-" + Long.MAX_VALUE}) {
+            assertThrows(IllegalArgumentException.class, () -> StreamKey.parseKey(streamId), streamId);
+        }
+        assertThrows(IllegalArgumentException.class, () -> new StreamKey(-1, false));
+    }
+}
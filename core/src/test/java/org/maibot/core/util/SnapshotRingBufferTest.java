@@ -0,0 +1,53 @@
+package org.maibot.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotRingBufferTest {
+    @Test
+    void keepsLatestElementsInOrder() {
+        var buffer = new SnapshotRingBuffer<Integer>(3);
+        assertEquals(List.of(), buffer.snapshot());
+        assertNull(buffer.latest());
+
+        buffer.add(1);
+        buffer.add(2);
+        assertEquals(List.of(1, 2), buffer.snapshot());
+        assertEquals(2, buffer.size());
+
+        for (int value = 3; value <= 7; value++) {
+            buffer.add(value);
+        }
+        assertEquals(List.of(5, 6, 7), buffer.snapshot());
+        assertEquals(7, buffer.latest());
+        assertEquals(3, buffer.size());
+    }
+
+    @Test
+    void snapshotIsContiguousUnderConcurrentWrites() throws InterruptedException {
+        var buffer = new SnapshotRingBuffer<Integer>(16);
+        var writer = new Thread(() -> {
+            for (int value = 0; value < 200_000; value++) {
+                buffer.add(value);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            var snapshot = buffer.snapshot();
+            assertTrue(snapshot.size() <= 16);
+            for (int idx = 1; idx < snapshot.size(); idx++) {
+                assertEquals(snapshot.get(idx - 1) + 1, snapshot.get(idx));
+            }
+        }
+        writer.join();
+        assertEquals(199_999, buffer.latest());
+    }
+
+    @Test
+    void rejectsNonPositiveCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SnapshotRingBuffer<>(0));
+    }
+}
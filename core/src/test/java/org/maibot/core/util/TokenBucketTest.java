@@ -0,0 +1,38 @@
+package org.maibot.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+    @Test
+    void tryAcquireStopsAtBurst() {
+        // 补充速率足够低，测试期间不会补充令牌
+        var bucket = new TokenBucket(0.001, 3);
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void reserveOverdraftIsBounded() {
+        var bucket = new TokenBucket(1, 2);
+        assertEquals(0, bucket.reserve());
+        assertEquals(0, bucket.reserve());
+
+        for (int idx = 0; idx < 10; idx++) {
+            long wait = bucket.reserve();
+            assertTrue(wait > 0);
+            // 透支至多一个桶容量：等待不超过 burst / permitsPerSecond
+            assertTrue(wait <= 2_000_000_000L);
+        }
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(1, 0));
+    }
+}
@@ -0,0 +1,129 @@
+package org.maibot.sdk.network;
+
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponse;
+import lombok.Getter;
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 异步HTTP请求处理器
+ * <p>
+ * 处理过程不在网络事件循环上执行：默认将 {@link #handleRequest} 卸载到核心提供的虚拟线程执行器上，
+ * 因此可以在其中直接进行数据库访问等阻塞操作；响应会被切回连接所在的事件循环写出。<br>
+ * 处理超过 {@link #getTimeout()} 仍未完成时，核心返回 504 并丢弃迟到的响应。
+ * <p>
+ * 同一连接上的后续请求会在当前异步请求完成后按序处理，保证流水线请求的响应顺序。
+ */
+public abstract class AsyncHttpRequestProcessor extends HttpRequestProcessor {
+    /// 默认处理超时
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+    /// 处理超时
+    @Getter
+    private final Duration timeout;
+
+    public AsyncHttpRequestProcessor(HttpMethod method, String path, Duration timeout, Logger logger) {
+        super(method, path, logger);
+        this.timeout = timeout;
+    }
+
+    public AsyncHttpRequestProcessor(HttpMethod method, String path, Duration timeout, Class<?> loggerClass) {
+        super(method, path, loggerClass);
+        this.timeout = timeout;
+    }
+
+    public AsyncHttpRequestProcessor(HttpMethod method, String path, Class<?> loggerClass) {
+        this(method, path, DEFAULT_TIMEOUT, loggerClass);
+    }
+
+    /**
+     * 异步处理请求
+     * <p>
+     * 默认在 executor 上执行阻塞式的 {@link #handleRequest(FullHttpRequest, Map)}；
+     * 已有异步结果（如数据库的异步查询）的处理器可直接覆盖此方法。<br>
+     * 请求在返回的 CompletionStage 完成前保持有效，完成后由核心释放。
+     * <p>
+     * 处理超时后核心会对结果调用 {@code cancel(true)}：默认实现只中断处理线程，结果仍在处理真正结束后才完成；
+     * 覆盖此方法时，若返回的结果被取消即完成，则处理过程不应在取消后继续使用请求。
+     *
+     * @param req        请求
+     * @param pathParams 路径参数
+     * @param executor   核心提供的卸载执行器（虚拟线程）
+     * @return 响应的异步结果，结果为null时不发送响应
+     */
+    public CompletionStage<HttpResponse> handleRequestAsync(FullHttpRequest req, Map<String, String> pathParams, Executor executor) {
+        var future = new InterruptibleFuture<HttpResponse>();
+        try {
+            executor.execute(() -> future.run(() -> handleRequest(req, pathParams)));
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * 取消时只中断执行线程、不立即完成的结果
+     * <p>
+     * 结果总在任务真正结束后才完成，因此完成回调中释放任务使用的资源是安全的
+     */
+    private static final class InterruptibleFuture<T> extends CompletableFuture<T> {
+        private Thread worker;
+        private boolean cancelRequested = false;
+
+        void run(Callable<T> task) {
+            synchronized (this) {
+                if (cancelRequested) {
+                    completeExceptionally(new CancellationException());
+                    return;
+                }
+                worker = Thread.currentThread();
+            }
+
+            T result = null;
+            Throwable error = null;
+            try {
+                result = task.call();
+            } catch (Throwable e) {
+                // 包括Error，保证结果总会完成
+                error = e;
+            } finally {
+                synchronized (this) {
+                    worker = null;
+                    // 清除可能迟到的中断标记
+                    //noinspection ResultOfMethodCallIgnored
+                    Thread.interrupted();
+                }
+            }
+
+            if (error != null) {
+                completeExceptionally(error);
+            } else {
+                complete(result);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (isDone()) {
+                    return false;
+                }
+                cancelRequested = true;
+                if (mayInterruptIfRunning && worker != null) {
+                    worker.interrupt();
+                }
+                return true;
+            }
+        }
+    }
+}
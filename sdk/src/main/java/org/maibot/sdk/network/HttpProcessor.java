@@ -0,0 +1,43 @@
+package org.maibot.sdk.network;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * HTTP路由处理器的公共基类
+ * <p>
+ * 只包含路由所需的元数据（方法、路径）与日志；请求的处理方式由子类决定：
+ * 聚合后处理完整请求的 {@link HttpRequestProcessor}，或增量接收请求体的 {@link StreamingHttpRequestProcessor}
+ */
+public abstract class HttpProcessor {
+    protected final Logger log;
+    @Getter
+    private final HttpMethod method;
+    @Getter
+    private final String path;
+
+    public HttpProcessor(HttpMethod method, String path, Logger logger) {
+        this.method = method;
+        this.path = path;
+        this.log = logger;
+    }
+
+    public HttpProcessor(HttpMethod method, String path, Class<?> loggerClass) {
+        this(method, path, LoggerFactory.getLogger(loggerClass));
+    }
+
+    /**
+     * 处理已聚合的完整请求并写出响应
+     *
+     * @param ctx        连接的ChannelHandlerContext
+     * @param req        请求
+     * @param pathParams 路由模式中 <code>{param}</code> 与 <code>*</code> 段匹配到的路径参数
+     */
+    public abstract void process(ChannelHandlerContext ctx, FullHttpRequest req, Map<String, String> pathParams) throws Exception;
+}
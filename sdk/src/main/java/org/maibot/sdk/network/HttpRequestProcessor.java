@@ -1,42 +1,110 @@
 package org.maibot.sdk.network;
 
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.http.FullHttpRequest;
-import io.netty.handler.codec.http.HttpMethod;
-import io.netty.handler.codec.http.HttpResponse;
-import lombok.Getter;
+import io.netty.handler.codec.http.*;
 import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-public abstract class HttpRequestProcessor {
-    protected final Logger log;
-    @Getter
-    private final HttpMethod method;
-    @Getter
-    private final String path;
 
+import java.util.Map;
 
+public abstract class HttpRequestProcessor extends HttpProcessor {
     public HttpRequestProcessor(HttpMethod method, String path, Logger logger) {
-        this.method = method;
-        this.path = path;
-        this.log = logger;
+        super(method, path, logger);
     }
 
     public HttpRequestProcessor(HttpMethod method, String path, Class<?> loggerClass) {
-        this(method, path, LoggerFactory.getLogger(loggerClass));
+        super(method, path, loggerClass);
     }
 
+    /**
+     * 处理不带路径参数的请求并写出响应
+     * <p>
+     * 覆盖此方法的处理器在无路径参数匹配时仍会被调用
+     *
+     * @param ctx 连接的ChannelHandlerContext
+     * @param req 请求
+     */
     public void process(ChannelHandlerContext ctx, FullHttpRequest req) throws Exception {
-        var resp = handleRequest(req);
+        respond(ctx, req, handleRequest(req, Map.of()));
+    }
+
+    /**
+     * 处理请求并写出响应
+     * <p>
+     * 路径参数为空时委托给 {@link #process(ChannelHandlerContext, FullHttpRequest)}
+     *
+     * @param ctx        连接的ChannelHandlerContext
+     * @param req        请求
+     * @param pathParams 路由模式中 <code>{param}</code> 与 <code>*</code> 段匹配到的路径参数
+     */
+    @Override
+    public void process(ChannelHandlerContext ctx, FullHttpRequest req, Map<String, String> pathParams) throws Exception {
+        if (pathParams.isEmpty()) {
+            process(ctx, req);
+        } else {
+            respond(ctx, req, handleRequest(req, pathParams));
+        }
+    }
+
+    private void respond(ChannelHandlerContext ctx, FullHttpRequest req, HttpResponse resp) {
         if (resp == null) {
             log.trace("无响应数据");
         } else {
             log.trace("发送响应 {}", resp.status().code());
-            ctx.writeAndFlush(resp).addListener(ChannelFutureListener.CLOSE);
+            writeResponse(ctx, req, resp);
         }
     }
 
     @SuppressWarnings("RedundantThrows") // 抑制警告：声明的异常从不在任何方法实现中抛出
     abstract public HttpResponse handleRequest(FullHttpRequest req) throws Exception;
+
+    /**
+     * 处理带路径参数的请求
+     * <p>
+     * 默认忽略路径参数，路由模式中包含 <code>{param}</code> 或 <code>*</code> 段的处理器应覆盖此方法
+     *
+     * @param req        请求
+     * @param pathParams 路径参数
+     * @return 响应，为null时不发送响应
+     */
+    public HttpResponse handleRequest(FullHttpRequest req, Map<String, String> pathParams) throws Exception {
+        return handleRequest(req);
+    }
+
+    /**
+     * 按请求的Keep-Alive语义写出响应
+     * <p>
+     * - 未设置消息长度的响应会补全Content-Length，以便在同一连接上继续处理后续请求<br>
+     * - 非FullHttpResponse视为无响应体，自动补发LastHttpContent（分块传输除外，由调用方自行结束）<br>
+     * - 请求未要求保持连接（HTTP/1.0 或 Connection: close）时，响应写出后关闭连接
+     *
+     * @param ctx  连接的ChannelHandlerContext
+     * @param req  对应的请求
+     * @param resp 待写出的响应
+     * @return 写出操作的Future
+     */
+    public static ChannelFuture writeResponse(ChannelHandlerContext ctx, HttpRequest req, HttpResponse resp) {
+        boolean keepAlive = HttpUtil.isKeepAlive(req);
+        boolean chunked = HttpUtil.isTransferEncodingChunked(resp);
+
+        if (!chunked && !HttpUtil.isContentLengthSet(resp)) {
+            var length = resp instanceof FullHttpResponse full ? full.content().readableBytes() : 0;
+            HttpUtil.setContentLength(resp, length);
+        }
+        HttpUtil.setKeepAlive(resp, keepAlive);
+
+        ChannelFuture future;
+        if (resp instanceof FullHttpResponse || chunked) {
+            future = ctx.writeAndFlush(resp);
+        } else {
+            ctx.write(resp);
+            future = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        return future;
+    }
 }
@@ -0,0 +1,191 @@
+package org.maibot.sdk.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.*;
+import io.netty.handler.stream.ChunkedNioFile;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import io.netty.util.AsciiString;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * HTTP响应构建工具
+ * <p>
+ * - 动态响应体使用池化的直接内存分配，写出后由编码器释放，避免每次请求的堆内拷贝与GC压力<br>
+ * - 固定响应体（如健康检查）使用 {@link #cached} 预先编码一次，之后每次响应仅复制引用<br>
+ * - 文件使用 {@link #sendFile} 零拷贝或分块流式发送
+ */
+public final class HttpResponses {
+    public static final AsciiString TEXT_PLAIN = AsciiString.cached("text/plain; charset=UTF-8");
+    public static final AsciiString APPLICATION_JSON = AsciiString.cached("application/json; charset=UTF-8");
+
+    /// 处理链中既无HTTP/1.1编解码器也无 {@link ChunkedWriteHandler} 时，允许读入内存发送的最大文件长度（16MB）
+    public static final int MAX_BUFFERED_FILE_LENGTH = 1024 * 1024 * 16;
+    /// 分块发送文件时每块的长度
+    private static final int FILE_CHUNK_SIZE = 8192;
+
+    private HttpResponses() {
+    }
+
+    /**
+     * 使用池化分配器构建文本响应
+     *
+     * @param req         对应的请求
+     * @param status      响应状态
+     * @param contentType 内容类型
+     * @param body        响应体
+     * @return 响应
+     */
+    public static FullHttpResponse text(HttpRequest req, HttpResponseStatus status, CharSequence contentType, CharSequence body) {
+        return text(PooledByteBufAllocator.DEFAULT, req, status, contentType, body);
+    }
+
+    /**
+     * 使用指定的分配器（通常为 <code>ctx.alloc()</code>）构建文本响应
+     *
+     * @param alloc       缓冲区分配器
+     * @param req         对应的请求
+     * @param status      响应状态
+     * @param contentType 内容类型
+     * @param body        响应体
+     * @return 响应
+     */
+    public static FullHttpResponse text(ByteBufAllocator alloc, HttpRequest req, HttpResponseStatus status, CharSequence contentType, CharSequence body) {
+        var content = alloc.directBuffer(ByteBufUtil.utf8MaxBytes(body));
+        ByteBufUtil.writeUtf8(content, body);
+        var resp = new DefaultFullHttpResponse(req.protocolVersion(), status, content);
+        resp.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        return resp;
+    }
+
+    /**
+     * 使用池化分配器构建JSON响应
+     *
+     * @param req    对应的请求
+     * @param status 响应状态
+     * @param json   JSON文本
+     * @return 响应
+     */
+    public static FullHttpResponse json(HttpRequest req, HttpResponseStatus status, CharSequence json) {
+        return text(req, status, APPLICATION_JSON, json);
+    }
+
+    /**
+     * 预先编码一个固定响应
+     *
+     * @param status      响应状态
+     * @param contentType 内容类型
+     * @param body        响应体
+     * @return 固定响应，可在所有连接间共享
+     */
+    public static CachedResponse cached(HttpResponseStatus status, CharSequence contentType, CharSequence body) {
+        var bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+        var content = Unpooled.directBuffer(bytes.length).writeBytes(bytes);
+        return new CachedResponse(status, contentType, Unpooled.unreleasableBuffer(content.asReadOnly()));
+    }
+
+    /**
+     * 预先编码的固定响应
+     * <p>
+     * 响应体只读且不可释放，每次构建响应仅创建共享同一内存的视图
+     */
+    public static final class CachedResponse {
+        private final HttpResponseStatus status;
+        private final AsciiString contentType;
+        private final ByteBuf body;
+        private final String contentLength;
+
+        private CachedResponse(HttpResponseStatus status, CharSequence contentType, ByteBuf body) {
+            this.status = status;
+            this.contentType = AsciiString.of(contentType);
+            this.body = body;
+            this.contentLength = String.valueOf(body.readableBytes());
+        }
+
+        /**
+         * 为请求构建响应
+         *
+         * @param req 对应的请求
+         * @return 响应
+         */
+        public FullHttpResponse newResponse(HttpRequest req) {
+            var resp = new DefaultFullHttpResponse(req.protocolVersion(), status, body.duplicate());
+            resp.headers()
+                    .set(HttpHeaderNames.CONTENT_TYPE, contentType)
+                    .set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+            return resp;
+        }
+    }
+
+    /**
+     * 发送文件（遵循请求的Keep-Alive语义）
+     * <p>
+     * - 连接直接由HTTP/1.1编解码器处理时，使用 {@link DefaultFileRegion} 由内核零拷贝发送<br>
+     * - 处理链中有 {@link ChunkedWriteHandler} 时（如HTTP/2的流），按块流式读取发送，不将整个文件读入内存<br>
+     * - 否则将文件读入池化缓冲区后发送，仅允许不超过 {@link #MAX_BUFFERED_FILE_LENGTH} 的文件
+     *
+     * @param ctx         连接的ChannelHandlerContext
+     * @param req         对应的请求
+     * @param file        文件路径
+     * @param contentType 内容类型
+     * @return 写出操作的Future
+     * @throws IOException 文件无法读取，或需读入内存发送的文件过大
+     */
+    public static ChannelFuture sendFile(ChannelHandlerContext ctx, HttpRequest req, Path file, CharSequence contentType) throws IOException {
+        var raf = new RandomAccessFile(file.toFile(), "r");
+        long length;
+        try {
+            length = raf.length();
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+
+        var resp = new DefaultHttpResponse(req.protocolVersion(), HttpResponseStatus.OK);
+        resp.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        HttpUtil.setContentLength(resp, length);
+        boolean keepAlive = HttpUtil.isKeepAlive(req);
+        HttpUtil.setKeepAlive(resp, keepAlive);
+
+        ChannelFuture future;
+        if (ctx.pipeline().get(HttpServerCodec.class) != null) {
+            ctx.write(resp);
+            ctx.write(new DefaultFileRegion(raf.getChannel(), 0, length));
+            future = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        } else if (ctx.pipeline().get(ChunkedWriteHandler.class) != null) {
+            ctx.write(resp);
+            // 分块输入在末尾产生LastHttpContent，写完或失败后关闭文件
+            future = ctx.writeAndFlush(new HttpChunkedInput(new ChunkedNioFile(raf.getChannel(), 0, length, FILE_CHUNK_SIZE)));
+        } else {
+            if (length > MAX_BUFFERED_FILE_LENGTH) {
+                raf.close();
+                throw new IOException("File too large to send without a ChunkedWriteHandler: " + length + " bytes");
+            }
+            ByteBuf content = ctx.alloc().ioBuffer((int) length);
+            try (raf) {
+                content.writeBytes(raf.getChannel(), 0L, (int) length);
+            } catch (IOException e) {
+                content.release();
+                throw e;
+            }
+            ctx.write(resp);
+            future = ctx.writeAndFlush(new DefaultLastHttpContent(content));
+        }
+
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+        return future;
+    }
+}
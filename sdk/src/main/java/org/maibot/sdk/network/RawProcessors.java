@@ -0,0 +1,48 @@
+package org.maibot.sdk.network;
+
+import io.netty.channel.ChannelHandler;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 裸TCP通道的处理器集合
+ * <p>
+ * 裸TCP连接与HTTP/WebSocket共用同一端口，客户端需遵循以下约定：<br>
+ * - 连接建立后先发送4字节前导 {@link #PREFACE}（"MAIB"）<br>
+ * - 此后的数据均为长度前缀帧：<code>| length (int32, 不含自身) | payload |</code><br>
+ * - 第一帧的载荷为通道名称（UTF-8），用于选择处理器集合；之后的帧交由该集合的处理器处理
+ * <p>
+ * 处理器收到的消息为去掉长度前缀的 ByteBuf，写出 ByteBuf 时自动添加长度前缀。
+ */
+public class RawProcessors {
+    /// 裸TCP协议前导
+    public static final byte[] PREFACE = "MAIB".getBytes(StandardCharsets.US_ASCII);
+
+    @Getter
+    private final String name;
+    private final Supplier<List<ChannelHandler>> handlerFactory;
+
+    /**
+     * 使用处理器工厂，每个连接调用一次以创建独立的处理器列表
+     *
+     * @param name           通道名称
+     * @param handlerFactory 处理器列表工厂
+     */
+    public RawProcessors(String name, Supplier<List<ChannelHandler>> handlerFactory) {
+        this.name = name;
+        this.handlerFactory = handlerFactory;
+    }
+
+    /**
+     * 为新连接创建处理器列表
+     *
+     * @return 处理器列表
+     */
+    public List<ChannelHandler> createHandlers() {
+        return new ArrayList<>(this.handlerFactory.get());
+    }
+}
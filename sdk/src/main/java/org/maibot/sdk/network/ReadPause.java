@@ -0,0 +1,71 @@
+package org.maibot.sdk.network;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 按持有者暂停连接的读取
+ * <p>
+ * 连接的读取可能同时被多方暂停（限流、异步请求、流式请求的背压等），
+ * 每一方以自己的持有者对象暂停与恢复，只有所有持有者都恢复后才重新开启读取，
+ * 避免一方的恢复打开了另一方有意暂停的连接。<br>
+ * 所有暂停读取的组件都应通过本类操作，而不是直接调用 {@code setAutoRead}。
+ */
+public final class ReadPause {
+    private static final AttributeKey<Set<Object>> OWNERS = AttributeKey.valueOf(ReadPause.class, "owners");
+
+    private ReadPause() {
+    }
+
+    /**
+     * 以指定持有者暂停读取
+     *
+     * @param channel 连接
+     * @param owner   持有者
+     * @return 该持有者此前是否未暂停（重复暂停返回false）
+     */
+    public static boolean pause(Channel channel, Object owner) {
+        var owners = owners(channel);
+        synchronized (owners) {
+            if (!owners.add(owner)) {
+                return false;
+            }
+            channel.config().setAutoRead(false);
+            return true;
+        }
+    }
+
+    /**
+     * 解除指定持有者的暂停，没有其他持有者时恢复读取
+     *
+     * @param channel 连接
+     * @param owner   持有者
+     */
+    public static void resume(Channel channel, Object owner) {
+        var owners = channel.attr(OWNERS).get();
+        if (owners == null) {
+            return;
+        }
+        synchronized (owners) {
+            if (owners.remove(owner) && owners.isEmpty()) {
+                channel.config().setAutoRead(true);
+            }
+        }
+    }
+
+    private static Set<Object> owners(Channel channel) {
+        var attr = channel.attr(OWNERS);
+        var owners = attr.get();
+        if (owners == null) {
+            var created = new HashSet<>();
+            owners = attr.setIfAbsent(created);
+            if (owners == null) {
+                owners = created;
+            }
+        }
+        return owners;
+    }
+}
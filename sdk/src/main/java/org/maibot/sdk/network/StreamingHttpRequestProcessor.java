@@ -0,0 +1,108 @@
+package org.maibot.sdk.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.*;
+import org.slf4j.Logger;
+
+import java.util.Map;
+
+/**
+ * 流式HTTP请求处理器
+ * <p>
+ * 注册为该类型的路由不经过HTTP消息聚合器，请求体以分块的形式增量交付，适用于图片、文件等大体积上传。<br>
+ * 处理器本身在所有连接间共享，每个请求的状态应保存在 {@link #onRequest} 返回的 {@link BodyReceiver} 中。
+ * <p>
+ * 背压：接收方处理不过来时（如正在异步落盘），可调用 {@link #pause} 暂停从Socket读取，处理完毕后调用 {@link #resume} 恢复。
+ */
+public abstract class StreamingHttpRequestProcessor extends HttpProcessor {
+    /**
+     * 单个请求的请求体接收器
+     */
+    public interface BodyReceiver {
+        /**
+         * 收到一块请求体
+         * <p>
+         * chunk 在方法返回后即被释放，如需异步使用请自行 retain
+         *
+         * @param ctx   连接的ChannelHandlerContext
+         * @param chunk 请求体分块
+         */
+        void onContent(ChannelHandlerContext ctx, ByteBuf chunk) throws Exception;
+
+        /**
+         * 请求体接收完毕，接收方应在此（或之后异步地）通过 {@link HttpRequestProcessor#writeResponse} 写出响应
+         *
+         * @param ctx             连接的ChannelHandlerContext
+         * @param trailingHeaders 分块传输的尾部头
+         */
+        void onComplete(ChannelHandlerContext ctx, HttpHeaders trailingHeaders) throws Exception;
+
+        /**
+         * 请求在接收完毕前中断（连接关闭或处理异常），用于清理已落盘的临时数据等
+         *
+         * @param cause 中断原因
+         */
+        default void onAbort(Throwable cause) {
+        }
+    }
+
+    public StreamingHttpRequestProcessor(HttpMethod method, String path, Logger logger) {
+        super(method, path, logger);
+    }
+
+    public StreamingHttpRequestProcessor(HttpMethod method, String path, Class<?> loggerClass) {
+        super(method, path, loggerClass);
+    }
+
+    /**
+     * 收到请求头
+     *
+     * @param ctx        连接的ChannelHandlerContext
+     * @param req        请求头（不含请求体）
+     * @param pathParams 路径参数
+     * @return 该请求的请求体接收器；返回null表示已直接写出响应（如拒绝请求），后续请求体将被丢弃
+     */
+    public abstract BodyReceiver onRequest(ChannelHandlerContext ctx, HttpRequest req, Map<String, String> pathParams) throws Exception;
+
+    /**
+     * 以已聚合的完整请求驱动流式处理（如请求在其他路径上已被聚合）
+     */
+    @Override
+    public void process(ChannelHandlerContext ctx, FullHttpRequest req, Map<String, String> pathParams) throws Exception {
+        var receiver = onRequest(ctx, req, pathParams);
+        if (receiver == null) {
+            return;
+        }
+        try {
+            if (req.content().isReadable()) {
+                receiver.onContent(ctx, req.content());
+            }
+            receiver.onComplete(ctx, req.trailingHeaders());
+        } catch (Exception e) {
+            receiver.onAbort(e);
+            throw e;
+        }
+    }
+
+    /// 流式请求背压的暂停持有者（见 {@link ReadPause}）
+    private static final Object PAUSE_OWNER = new Object();
+
+    /**
+     * 暂停从连接读取数据
+     *
+     * @param ctx 连接的ChannelHandlerContext
+     */
+    public static void pause(ChannelHandlerContext ctx) {
+        ReadPause.pause(ctx.channel(), PAUSE_OWNER);
+    }
+
+    /**
+     * 恢复从连接读取数据（限流等其他原因暂停的读取不受影响）
+     *
+     * @param ctx 连接的ChannelHandlerContext
+     */
+    public static void resume(ChannelHandlerContext ctx) {
+        ReadPause.resume(ctx.channel(), PAUSE_OWNER);
+    }
+}
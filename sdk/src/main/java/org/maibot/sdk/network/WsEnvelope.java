@@ -0,0 +1,62 @@
+package org.maibot.sdk.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultByteBufHolder;
+import lombok.Getter;
+
+/**
+ * 二进制WebSocket消息信封
+ * <p>
+ * 由 {@link WsEnvelopeCodec} 编解码，载荷的格式由消息类型约定（如 protobuf / msgpack / 原始字节）。<br>
+ * 信封持有载荷的引用计数，使用完毕后需要释放。
+ */
+@Getter
+public final class WsEnvelope extends DefaultByteBufHolder {
+    /// 消息类型，取值范围 0 ~ 65535
+    private final int type;
+    /// 消息所属的交互流ID，可为空字符串
+    private final String streamId;
+
+    public WsEnvelope(int type, String streamId, ByteBuf payload) {
+        super(payload);
+        if (type < 0 || type > 0xFFFF) {
+            throw new IllegalArgumentException("Envelope type out of range: " + type);
+        }
+        this.type = type;
+        this.streamId = streamId == null ? "" : streamId;
+    }
+
+    @Override
+    public WsEnvelope replace(ByteBuf content) {
+        return new WsEnvelope(type, streamId, content);
+    }
+
+    @Override
+    public WsEnvelope retain() {
+        super.retain();
+        return this;
+    }
+
+    @Override
+    public WsEnvelope retain(int increment) {
+        super.retain(increment);
+        return this;
+    }
+
+    @Override
+    public WsEnvelope touch() {
+        super.touch();
+        return this;
+    }
+
+    @Override
+    public WsEnvelope touch(Object hint) {
+        super.touch(hint);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "WsEnvelope(type=" + type + ", streamId=" + streamId + ", payload=" + content().readableBytes() + "B)";
+    }
+}
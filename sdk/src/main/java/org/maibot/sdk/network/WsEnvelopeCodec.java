@@ -0,0 +1,101 @@
+package org.maibot.sdk.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 二进制信封编解码器
+ * <p>
+ * 在二进制帧与 {@link WsEnvelope} 之间转换，文本帧（JSON）与控制帧原样透传。
+ * 一个二进制帧可以连续携带多个信封，每个信封的格式为：
+ * <pre>
+ * | length (int32, 不含自身) | type (uint16) | streamId长度 (uint16) | streamId (UTF-8) | payload |
+ * </pre>
+ * 解码得到的载荷是帧内容的切片，不发生拷贝；编码时载荷以组合缓冲区的形式拼接，同样不拷贝。
+ * <p>
+ * 编解码器无状态，可被同一路径下的所有连接共享。
+ */
+@ChannelHandler.Sharable
+public class WsEnvelopeCodec extends MessageToMessageCodec<BinaryWebSocketFrame, WsEnvelope> {
+    /// 共享实例
+    public static final WsEnvelopeCodec INSTANCE = new WsEnvelopeCodec();
+
+    /// 信封头部长度（不含streamId）
+    private static final int HEADER_LENGTH = 4 + 2 + 2;
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, WsEnvelope msg, List<Object> out) {
+        out.add(encode(ctx.alloc(), List.of(msg)));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, BinaryWebSocketFrame msg, List<Object> out) {
+        var buf = msg.content();
+        while (buf.isReadable()) {
+            if (buf.readableBytes() < HEADER_LENGTH) {
+                throw new CorruptedFrameException("Truncated envelope header: " + buf.readableBytes() + " bytes");
+            }
+            int length = buf.readInt();
+            if (length < 4 || length > buf.readableBytes()) {
+                throw new CorruptedFrameException("Invalid envelope length: " + length);
+            }
+            int end = buf.readerIndex() + length;
+            int type = buf.readUnsignedShort();
+            int idLength = buf.readUnsignedShort();
+            if (buf.readerIndex() + idLength > end) {
+                throw new CorruptedFrameException("Invalid stream id length: " + idLength);
+            }
+            var streamId = buf.toString(buf.readerIndex(), idLength, StandardCharsets.UTF_8);
+            buf.skipBytes(idLength);
+
+            out.add(new WsEnvelope(type, streamId, buf.readRetainedSlice(end - buf.readerIndex())));
+        }
+    }
+
+    /**
+     * 将多个信封编码到同一个二进制帧中（用于批量推送，如历史消息）
+     * <p>
+     * 信封本身不会被释放，其载荷的引用由返回的帧持有
+     *
+     * @param alloc     缓冲区分配器
+     * @param envelopes 信封
+     * @return 二进制帧
+     */
+    public static BinaryWebSocketFrame encode(ByteBufAllocator alloc, Collection<WsEnvelope> envelopes) {
+        CompositeByteBuf composite = alloc.compositeBuffer(envelopes.size() * 2);
+        try {
+            for (var envelope : envelopes) {
+                var streamId = envelope.getStreamId();
+                int idLength = ByteBufUtil.utf8Bytes(streamId);
+                if (idLength > 0xFFFF) {
+                    throw new IllegalArgumentException("Stream id too long: " + idLength + " bytes");
+                }
+                var payload = envelope.content();
+
+                ByteBuf header = alloc.buffer(HEADER_LENGTH + idLength);
+                header.writeInt(2 + 2 + idLength + payload.readableBytes());
+                header.writeShort(envelope.getType());
+                header.writeShort(idLength);
+                ByteBufUtil.reserveAndWriteUtf8(header, streamId, idLength);
+
+                composite.addComponent(true, header);
+                composite.addComponent(true, payload.retainedDuplicate());
+            }
+        } catch (RuntimeException e) {
+            composite.release();
+            throw e;
+        }
+        return new BinaryWebSocketFrame(composite);
+    }
+}
@@ -2,20 +2,108 @@ package org.maibot.sdk.network;
 
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolConfig;
 import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketServerCompressionHandler;
 import lombok.Getter;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class WsProcessors extends ChannelInboundHandlerAdapter {
+    /// 默认的单帧最大载荷长度（与Netty的缺省值一致）
+    public static final int DEFAULT_MAX_FRAME_SIZE = 65536;
+
     @Getter
     private final String path;
+    private final Supplier<List<ChannelHandler>> handlerFactory;
+
+    /// 是否协商 permessage-deflate 压缩扩展
+    @Getter
+    private boolean compressionEnabled = false;
+    /// 是否启用二进制信封编解码器
     @Getter
-    private final List<ChannelHandler> handlers;
+    private boolean envelopeCodecEnabled = false;
+    /// 单帧最大载荷长度（字节），同时限制压缩帧解压后的长度
+    @Getter
+    private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
 
+    /**
+     * 使用固定的处理器列表
+     * <p>
+     * 列表中的处理器会被该路径下的所有连接共享，因此应当是 {@link ChannelHandler.Sharable} 的；
+     * 未提供WebSocketServerProtocolHandler时，每个连接会自动创建一个。
+     *
+     * @param path     WebSocket路径
+     * @param handlers 处理器列表
+     */
     public WsProcessors(String path, List<ChannelHandler> handlers) {
+        this(path, () -> handlers);
+    }
+
+    /**
+     * 使用处理器工厂，每个连接调用一次以创建独立的处理器列表（适用于非共享的有状态处理器）
+     *
+     * @param path           WebSocket路径
+     * @param handlerFactory 处理器列表工厂
+     */
+    public WsProcessors(String path, Supplier<List<ChannelHandler>> handlerFactory) {
         this.path = path;
-        this.handlers = handlers;
+        this.handlerFactory = handlerFactory;
+    }
+
+    /**
+     * 启用 permessage-deflate 压缩扩展（由客户端发起协商，未协商的连接不受影响）
+     * <p>
+     * 自行提供WebSocketServerProtocolHandler时，需在其配置中开启 allowExtensions
+     *
+     * @return this
+     */
+    public WsProcessors enableCompression() {
+        this.compressionEnabled = true;
+        return this;
+    }
+
+    /**
+     * 设置单帧最大载荷长度
+     * <p>
+     * 启用压缩时，压缩帧解压后的长度同样受此限制，防止少量压缩数据解压出大量内容；
+     * 自行提供WebSocketServerProtocolHandler时，帧长度以其配置为准
+     *
+     * @param maxFrameSize 最大载荷长度（字节）
+     * @return this
+     */
+    public WsProcessors maxFrameSize(int maxFrameSize) {
+        if (maxFrameSize <= 0) {
+            throw new IllegalArgumentException("maxFrameSize must be positive: " + maxFrameSize);
+        }
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    /**
+     * 启用二进制信封编解码器 {@link WsEnvelopeCodec}
+     * <p>
+     * 启用后，后续处理器收到的二进制帧被解码为 {@link WsEnvelope}，写出的 {@link WsEnvelope} 被编码为二进制帧；
+     * 文本帧（JSON）不受影响，可与信封混合使用
+     *
+     * @return this
+     */
+    public WsProcessors enableEnvelopeCodec() {
+        this.envelopeCodecEnabled = true;
+        return this;
+    }
+
+    /**
+     * 为新连接创建处理器列表
+     * <p>
+     * 保证列表中包含WebSocketServerProtocolHandler，其前面只可能是压缩处理器，后面紧跟信封编解码器（若启用）
+     *
+     * @return 处理器列表
+     */
+    public List<ChannelHandler> createHandlers() {
+        var handlers = new ArrayList<>(this.handlerFactory.get());
 
         // 确保第一个处理器是WebSocketServerProtocolHandler
         if (handlers.isEmpty() || !(handlers.getFirst() instanceof WebSocketServerProtocolHandler)) {
@@ -35,8 +123,33 @@ public class WsProcessors extends ChannelInboundHandlerAdapter {
                 handlers.addFirst(handler);
             } else {
                 // 否则添加一个新的WebSocketServerProtocolHandler到第一个位置
-                handlers.addFirst(new WebSocketServerProtocolHandler(path));
+                var config = WebSocketServerProtocolConfig.newBuilder()
+                        .websocketPath(path)
+                        .allowExtensions(compressionEnabled)
+                        .maxFramePayloadLength(maxFrameSize)
+                        .build();
+                handlers.addFirst(new WebSocketServerProtocolHandler(config));
             }
         }
+
+        if (envelopeCodecEnabled) {
+            handlers.add(1, WsEnvelopeCodec.INSTANCE);
+        }
+        if (compressionEnabled) {
+            // 压缩处理器需要先于协议处理器看到握手请求；限制解压后的长度以防范解压炸弹
+            handlers.addFirst(new WebSocketServerCompressionHandler(maxFrameSize));
+        }
+        return handlers;
+    }
+
+    /**
+     * 获取处理器列表
+     *
+     * @return 新创建的处理器列表（同 {@link #createHandlers()}）
+     * @deprecated 处理器列表改为按连接创建，请使用 {@link #createHandlers()}
+     */
+    @Deprecated
+    public List<ChannelHandler> getHandlers() {
+        return createHandlers();
     }
 }